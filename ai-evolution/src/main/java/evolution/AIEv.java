@@ -0,0 +1,255 @@
+package evolution;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * This class is the actual AI to be used by AI_Evolution and EvolutionEngine. It holds no drawing state, so it can be
+ * used in headless runs without loading any AWT classes.
+ * @author Joshua Rissman
+ *
+ */
+class AIEv
+{
+	/** 
+	 * The score of this AI according to the fitness function of {@link EvolutionEngine}, once {@link #scored} is true. 
+	 * Until then, a mutated AI holds the score of its parent here, which {@link #mutations} are applied to when it is 
+	 * scored.
+	 */
+	double score = 0;
+	/** Whether or not {@link #score} holds the score of this AI itself. */
+	boolean scored = false;
+	/** Whether or not {@link #score} holds the score of the parent, to which {@link #mutations} can be applied. */
+	boolean inheritsScore = false;
+	/** 
+	 * The indices of the steps that were mutated when this AI was built from its parent, or null if none were. Only 
+	 * kept until this AI is scored.
+	 */
+	int[] mutations;
+	/** 
+	 * The steps of the parent at each index in {@link #mutations}, in the same order. Only kept until this AI is 
+	 * scored.
+	 */
+	int[] replaced;
+	/** The number of steps that were mutated when this AI was built from its parent. */
+	int mutationCount = 0;
+	/** 
+	 * The number of steps of this AI that do not land on the center, if it was counted as this AI was built, so that it
+	 * can be checked for being perfect without looking at every step. Otherwise, -1.
+	 */
+	int offCenter = -1;
+	/** 
+	 * Holds the integer representation for the horizontal (x-values) of the steps that make up this AI. Kept as a 
+	 * primitive array so that the fitness loop never has to unbox a step.
+	 */
+	int[] steps;
+	
+	/**
+	 * A constructor that builds an AI based on a given AI that it will randomly deviate from depending on mutation rate
+	 * and step size ({@code tolerance}). If the parent has been scored, this AI carries the parent's score along with the
+	 * steps it mutated, so it can be scored by only looking at the steps that changed.
+	 * <p>
+	 * Every step still has a {@code rateOfMutation} chance of being mutated, independently of every other step. Rather 
+	 * than drawing a random number for every step to find out, the parent's steps are copied as a whole and the gap to 
+	 * the next mutated step is drawn from the geometric distribution, so only the steps that mutate cost any random 
+	 * numbers.
+	 * </p>
+	 * @param parent The parent AI for this AI to be based on.
+	 * @param frameWidth The width of the frame this AI is drawn in. Determines the limits of how far to the left and 
+	 * right it can go. 
+	 * @param tolerance The distance horizontally that the AI can move in one step.
+	 * @param rateOfMutation The mutation rate of this AI. In other words, how likely it is that one of its parents steps
+	 * are to be different from its own.
+	 * @param random The random number generator this AI is built from.
+	 */
+	public AIEv(AIEv parent, int frameWidth, int tolerance, double rateOfMutation, RandomGenerator random)
+	{
+		this(parent, frameWidth, tolerance, logOfNoMutation(rateOfMutation), 
+				nextMutation(-1, logOfNoMutation(rateOfMutation), random), random);
+	}
+	
+	/**
+	 * Builds an AI based on a given AI once the first step to be mutated is already known.
+	 * @param parent The parent AI for this AI to be based on.
+	 * @param frameWidth The width of the frame this AI is drawn in.
+	 * @param tolerance The distance horizontally that the AI can move in one step.
+	 * @param logOfNoMutation The logarithm of the chance of a step not mutating (see {@link #logOfNoMutation(double)}).
+	 * @param firstMutation The index of the first step to be mutated, as drawn by 
+	 * {@link #nextMutation(double, double, RandomGenerator)}.
+	 * @param random The random number generator this AI is built from.
+	 */
+	private AIEv(AIEv parent, int frameWidth, int tolerance, double logOfNoMutation, double firstMutation, 
+			RandomGenerator random)
+	{
+		this.steps = parent.steps.clone();
+		this.score = parent.score;
+		this.inheritsScore = parent.scored;
+		
+		for(double a = firstMutation; a < steps.length; a = nextMutation(a, logOfNoMutation, random))
+		{
+			mutate((int) a, frameWidth, tolerance, random);
+		}
+	}
+	
+	/**
+	 * Builds an AI based on a given AI in the same way as 
+	 * {@link #AIEv(AIEv, int, int, double, RandomGenerator)}, except that an AI that would be identical to its parent 
+	 * is never built. Instead, the parent itself is returned, which already holds the same steps and score. This is 
+	 * known before anything is copied when no step is picked to be mutated, and is only found out after copying when 
+	 * every mutated step happened to land where it already was.
+	 * @param parent The parent AI for this AI to be based on.
+	 * @param frameWidth The width of the frame this AI is drawn in. Determines the limits of how far to the left and 
+	 * right it can go. 
+	 * @param tolerance The distance horizontally that the AI can move in one step.
+	 * @param rateOfMutation The mutation rate of this AI.
+	 * @param random The random number generator this AI is built from.
+	 * @return a new AI that differs from {@code parent} in at least one step, or {@code parent} itself.
+	 */
+	public static AIEv mutate(AIEv parent, int frameWidth, int tolerance, double rateOfMutation, RandomGenerator random)
+	{
+		double logOfNoMutation = logOfNoMutation(rateOfMutation);
+		double firstMutation = nextMutation(-1, logOfNoMutation, random);
+		if(firstMutation >= parent.steps.length)
+		{
+			return parent;
+		}
+		
+		AIEv child = new AIEv(parent, frameWidth, tolerance, logOfNoMutation, firstMutation, random);
+		return child.mutationCount == 0 ? parent : child;
+	}
+	
+	/**
+	 * @param rateOfMutation The mutation rate of an AI.
+	 * @return the logarithm of the chance of a step not mutating, so that the gaps between mutations can be drawn 
+	 * directly. A rate of 1 or more mutates every step, which gives negative infinity (a gap of 0 every time).
+	 */
+	static double logOfNoMutation(double rateOfMutation)
+	{
+		return rateOfMutation >= 1 ? Double.NEGATIVE_INFINITY : Math.log1p(-rateOfMutation);
+	}
+	
+	/**
+	 * Draws the index of the next step to be mutated. The number of steps skipped before the next mutation follows the 
+	 * geometric distribution, which is floor(log(u) / log(1 - rateOfMutation)) for a uniformly random u in (0, 1].
+	 * @param previous The index of the last step that was mutated, or -1 if none have been yet.
+	 * @param logOfNoMutation The logarithm of the chance of a step not mutating (see {@link #logOfNoMutation(double)}).
+	 * @param random The random number generator the AI is built from.
+	 * @return the index of the next step to be mutated. This is a double, since a tiny rate can draw a gap far larger 
+	 * than any int.
+	 */
+	static double nextMutation(double previous, double logOfNoMutation, RandomGenerator random)
+	{
+		return previous + 1 + Math.floor(Math.log(1.0 - random.nextDouble()) / logOfNoMutation);
+	}
+	
+	/**
+	 * Mutates a single step.
+	 * @param step The index of the step to be mutated.
+	 * @param frameWidth The width of the frame this AI is drawn in. Determines the limits of how far to the left and 
+	 * right it can go. 
+	 * @param tolerance The distance horizontally that the AI can move in one step.
+	 * @param random The random number generator this AI is built from.
+	 */
+	private void mutate(int step, int frameWidth, int tolerance, RandomGenerator random)
+	{
+		int num = steps[step];
+		int newStep = mutatedStep(num, frameWidth, tolerance, random);
+		steps[step] = newStep;
+		
+		//remember the mutation so that the score can be updated rather than worked out from scratch
+		if(newStep != num)
+		{
+			addMutation(step, num);
+		}
+	}
+	
+	/**
+	 * Works out what a single step becomes when it is mutated.
+	 * @param num The step before it is mutated.
+	 * @param frameWidth The width of the frame the AI is drawn in. Determines the limits of how far to the left and 
+	 * right it can go. 
+	 * @param tolerance The distance horizontally that the AI can move in one step.
+	 * @param random The random number generator the AI is built from.
+	 * @return the mutated step.
+	 */
+	static int mutatedStep(int num, int frameWidth, int tolerance, RandomGenerator random)
+	{
+		//"num +" makes the new step related to its predecessor (the original AI's step). 
+		//	Math.round(random.nextDouble() * tolerance * 2 - tolerance) makes it so that there is an equal chance 
+		//	of stepping left or right (the limit of newStep as random.nextDouble() approaches 0 is num - tolerance,
+		//	whereas the of newStep limit as random.nextDouble() approaches 1 is num + tolerance).
+		int newStep = (int) (num + Math.round(random.nextDouble() * tolerance * 2 - tolerance));
+		
+		//prevent the newStep from exceeding the width of the frame by rounding it to either edge
+		if(newStep >= frameWidth)
+		{
+			newStep = frameWidth;
+		}
+		else if(newStep < 0)
+		{
+			newStep = 0;
+		}
+		return newStep;
+	}
+	
+	/**
+	 * A constructor that builds and AI from scratch. This AI has no limit on how far it can step horizontally so that it 
+	 * may start off purely random.
+	 * @param stepsAllowed The number of steps this AI will take.
+	 * @param frameWidth The width of the frame this AI is drawn in. Determines the limits of how far to the left and 
+	 * right it can go.
+	 * @param random The random number generator this AI is built from.
+	 */
+	public AIEv(int stepsAllowed, int frameWidth, RandomGenerator random)
+	{
+		steps = new int[stepsAllowed];
+		for(int a = 0; a < stepsAllowed; a++)
+		{
+			steps[a] = (int)Math.round(random.nextDouble() * frameWidth);
+		}
+	}
+	
+	/**
+	 * Records that a step differs from the parent's step at the same index.
+	 * @param step The index of the step that was mutated.
+	 * @param previous The parent's step at that index.
+	 */
+	private void addMutation(int step, int previous)
+	{
+		if(mutations == null)
+		{
+			mutations = new int[4];
+			replaced = new int[4];
+		}
+		else if(mutationCount == mutations.length)
+		{
+			mutations = Arrays.copyOf(mutations, mutationCount * 2);
+			replaced = Arrays.copyOf(replaced, mutationCount * 2);
+		}
+		mutations[mutationCount] = step;
+		replaced[mutationCount] = previous;
+		mutationCount++;
+	}
+	
+	/**
+	 * A constructor that wraps steps that have already been worked out, along with their score.
+	 * @param steps The steps of this AI. The array is used as is, not copied.
+	 * @param score The score of this AI according to the fitness function of {@link EvolutionEngine}.
+	 */
+	AIEv(int[] steps, double score)
+	{
+		this.steps = steps;
+		this.score = score;
+		this.scored = true;
+	}
+	
+	/**
+	 * A standard "getter" method so outside classes can access the steps without modifying them.
+	 * @param step The index of the step the user wants to retrieve
+	 * @return an int which represents the horizontal placement (x-value) of this particular step.
+	 */
+	public int get(int step)
+	{
+		return steps[step];
+	}
+}
@@ -1,11 +1,21 @@
+package evolution;
+
 import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Insets;
-import java.util.ArrayList;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 import java.util.InputMismatchException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.JMException;
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 
 /**
  * This class, when constructed, runs AI simulations with either default or given parameters depending on the constructor
@@ -13,7 +23,7 @@ import javax.swing.JFrame;
  * @author Joshua Rissman
  *
  */
-public class AI_Evolution extends Canvas
+public class AI_Evolution extends Canvas implements EvolutionObserver
 {
 	private static final long serialVersionUID = 5L;
 	
@@ -69,13 +79,76 @@ public class AI_Evolution extends Canvas
 	 * found, as it would when set to true.
 	 */
 	boolean SILENT_SIMULATE = true;
+	/** 
+	 * Determines whether or not each generation is built and scored across all available cores. The best AI found is the
+	 * same one a single core would find, since ties are still won by the lowest index.
+	 */
+	boolean PARALLEL_SIMULATE = true;
+	/** The smallest number of AI handed to a single core at a time when {@link #PARALLEL_SIMULATE} is true. */
+	int PARALLEL_CHUNK_SIZE = 256;
 	/**
 	 * The frame in which the simulation is shown. Will halt the program when closed. Will not close automatically when 
 	 * the simulation is done.
 	 */
 	JFrame frame;
-	/** This variable stores the Graphics for this canvas from the BufferStrategy */
-	Graphics draw;
+	/** 
+	 * The number of buffers in this canvas' BufferStrategy. With more than one, every frame is drawn to a back buffer
+	 * and shown all at once, so a frame is never seen half drawn.
+	 */
+	int BUFFERS = 3;
+	/** 
+	 * Every frame is drawn into this image first, by writing straight into {@link #pixels}, and then copied to the 
+	 * canvas in a single call.
+	 */
+	BufferedImage image;
+	/** The pixels of {@link #image}, one int per pixel in RGB, row after row. */
+	int[] pixels;
+	/** 
+	 * The pixels of a single row of AI, which {@link #render(int, int[])} works out once and then copies into every row
+	 * of pixels the AI cover.
+	 */
+	int[] row;
+	/** 
+	 * Counts how many AI cover each column of a step. {@link #render(int, int[])} adds 1 where each AI starts and takes 
+	 * 1 away where it ends, so that a running sum tells whether a column is covered.
+	 */
+	int[] coverage;
+	/** The headless engine that runs the simulation drawn by this canvas. */
+	EvolutionEngine engine;
+	/** 
+	 * The most frames per second that will be drawn. Non-silent runs are further limited to one step every 
+	 * {@link #WAIT_BETWEEN_STEPS} milliseconds.
+	 */
+	int TARGET_FPS = 60;
+	/** Draws the simulation at its own pace while {@link #engine} runs at full speed. */
+	RenderLoop renderLoop;
+	/** The most AI copied out of each generation published for non-silent runs. Larger generations are sampled. */
+	int SNAPSHOT_AI = 10_000;
+	/** The least number of snapshots {@link #snapshots} holds before snapshots are dropped. */
+	int SNAPSHOT_CAPACITY = 16;
+	/** Carries the generations and best AI published by {@link #engine} to {@link #renderLoop}. */
+	SnapshotQueue<Snapshot> snapshots;
+	/** 
+	 * Set by {@link #renderLoop} once it is ready to draw another generation, so that {@link #engine} only copies out
+	 * the generations that will actually be drawn. Only used by non-silent runs.
+	 */
+	volatile boolean generationWanted;
+	/** 
+	 * Whether or not {@link #renderLoop} has asked for a generation it has not received yet, so that it only asks once.
+	 * Only used by {@link #renderLoop}.
+	 */
+	boolean generationRequested;
+	/** 
+	 * The latest generation and best AI {@link #renderLoop} has taken out of {@link #snapshots} but not drawn yet, or
+	 * null if there are none. Older ones are dropped in favour of these.
+	 */
+	Snapshot pendingGeneration, pendingBatch;
+	/** The generation being drawn step by step by {@link #renderLoop}, or null if no generation is being drawn. */
+	Snapshot shownGeneration;
+	/** The step of {@link #shownGeneration} that will be drawn next. */
+	int shownStep;
+	/** The time, according to {@link System#nanoTime()}, until which the current frame is held on screen. */
+	long holdUntil;
 
 	public static void main(String[] args)
 	{
@@ -95,8 +168,7 @@ public class AI_Evolution extends Canvas
 	
 	/**
 	 * This constructor calls {@link #init(String, int, int)} to setup the JFrame object, {@link #setBufferStrategy()} to  
-	 * setup this canvas' BufferStrategy and instantiate {@link #draw} and {@link #frame} then starts the simulation. It 
-	 * also sets the default AI color for AIEv objects.
+	 * setup this canvas' BufferStrategy and instantiate {@link #image} and {@link #frame} then starts the simulation.
 	 */
 	public AI_Evolution()
 	{
@@ -258,7 +330,7 @@ public class AI_Evolution extends Canvas
 		}
 		catch(InputMismatchException ex) 
 		{
-			frame.setTitle("Error! Check console!");
+			showTitle("Error! Check console!");
 			throw ex;
 		}
 		
@@ -440,7 +512,7 @@ public class AI_Evolution extends Canvas
 		}
 		catch(InputMismatchException ex) 
 		{
-			frame.setTitle("Error! Check console!");
+			showTitle("Error! Check console!");
 			throw ex;
 		}
 		
@@ -505,161 +577,235 @@ public class AI_Evolution extends Canvas
 
 	/**
 	 * This method starts a simulation and runs until the simulation has produced a perfect AI (the AI that follows the
-	 * given criteria the best).
-	 * @param silent A boolean that determines whether or not this simulation will show the 
+	 * given criteria the best). The simulation itself is run at full speed by an {@link EvolutionEngine} on this thread,
+	 * while {@link #renderLoop} draws the latest results it publishes on a thread of its own.
+	 * @param silent A boolean that determines whether or not this simulation will show the AI of every generation, or 
+	 * only the best AI of every {@link #VIEW_RATE} generations.
 	 */
 	public void run(boolean silent)
 	{
-		//the current best AI. "best" meaning the closest to making a straight line down the middle
-		AIEv bestAI = new AIEv(STEPS, USABLE_WIDTH);
-		//reset COUNT for a new simulation
-		GEN_COUNTER = 0;
-		//set the frame's title to the current generation
-		frame.setTitle(String.format("Generation %d", GEN_COUNTER));
-		//plot the current best AI, which is the ancestor for all future AI
-		plotBest(bestAI);
+		engine = new EvolutionEngine(WIDTH, USABLE_WIDTH, STEPS, AI_COUNT, TOLERANCE, MUTATION_RATE);
+		engine.PARALLEL_SIMULATE = PARALLEL_SIMULATE;
+		engine.PARALLEL_CHUNK_SIZE = PARALLEL_CHUNK_SIZE;
+		engine.observer = this;
+		//the run can be watched from any JMX client, such as JConsole or VisualVM. Every run of this class is registered
+		//	under the same name, replacing the run before it.
+		try
+		{
+			EvolutionMetrics.register(engine, "AI_Evolution");
+		}
+		catch(JMException ex)
+		{
+			System.out.printf("The run could not be registered over JMX: %s\n", ex.getMessage());
+		}
 		
-		//use a while loop instead of a do-while just in case the current best AI is already perfect
-		while(!isPerfect(bestAI))
+		//non-silent runs draw a single step each frame, so their frame rate is also capped by WAIT_BETWEEN_STEPS
+		int fps = TARGET_FPS;
+		if(!silent && WAIT_BETWEEN_STEPS > 0)
 		{
-			bestAI = simulate(bestAI, VIEW_RATE, TOLERANCE, silent);
-			frame.setTitle(String.format("Generation %d", GEN_COUNTER));
-			if(!silent)
-			{
-				frame.setTitle("Current Best AI");
-			}
-			plotBest(bestAI);
+			fps = Math.min(fps, 1000 / WAIT_BETWEEN_STEPS);
+		}
+		snapshots = new SnapshotQueue<>(SNAPSHOT_CAPACITY);
+		generationWanted = false;
+		generationRequested = false;
+		renderLoop = new RenderLoop(fps, this::drawFrame);
+		holdUntil = System.nanoTime();
+		renderLoop.start();
+		
+		AIEv bestAI = engine.run(VIEW_RATE);
+		
+		//stop the render loop before drawing from this thread, and before taking the final generation, since the render
+		//	loop sets GEN_COUNTER from the snapshots it draws
+		renderLoop.stop();
+		GEN_COUNTER = engine.GEN_COUNTER;
+		if(engine.METRICS != null)
+		{
+			engine.METRICS.unregister();
 		}
 		
 		//the best will not have been shown without 
 		plotBest(bestAI);
 		//show the user that the AI have found the center, and how many generations it took for them to do so.
-		frame.setTitle(String.format("Finished at Generation %d!", GEN_COUNTER));
+		showTitle(String.format("Finished at Generation %d!", GEN_COUNTER));
 	}
 	
 	/**
-	 * Runs {@code count} simulations based on {@code bestAI}.
-	 * @param bestAI The best AI found thus far. This will be used as a basis for the future generations.
-	 * @param count How many generations should pass before returning the best AI found.
-	 * @param tolerance How far the AI can step horizontally.
-	 * @param silent Whether or not this is a silent run. <b>{@code true}</b> if it is silent, <b>{@code false}</b>
-	 * if it is not.
-	 * @return the best AI found within {@code count} simulations.
+	 * Publishes a generation for {@link #renderLoop} to draw whenever it is ready to draw one, but only for non-silent 
+	 * runs. Every other generation is never copied at all. At most {@link #SNAPSHOT_AI} AI are copied, spread evenly
+	 * across the generation, and the parent is always the last of them.
+	 * @param generation The number of generations that have been simulated so far, including this one.
+	 * @param population The arena holding every AI of this generation. The last AI is a parent some of the others were 
+	 * based on.
+	 * @param indexOfBest The index of the best AI of this generation within {@code population}.
 	 */
-	public AIEv simulate(AIEv bestAI, int count, int tolerance, boolean silent)
+	@Override
+	public void generationFinished(int generation, PopulationArena population, int indexOfBest)
 	{
-		//count is the variable that counts down from VIEW_RATE so that an update on the best AI will be given at regular
-		//	intervals. Therefore, when count reaches zero, return the best AI found thus far.
-		if(count == 0)
+		if(!SILENT_SIMULATE && generationWanted)
 		{
-			return bestAI;
+			generationWanted = false;
+			//the arena is reused by the next generation, so the steps are copied out for the render thread
+			int count = Math.min(population.aiCount, Math.max(1, SNAPSHOT_AI));
+			int[] steps = new int[count * population.steps];
+			for(int s = 0; s < count; s++)
+			{
+				int a = count == 1 ? population.aiCount - 1 : (int) ((long) s * (population.aiCount - 1) / (count - 1));
+				population.current.readRow(population.row(a), steps, s * population.steps);
+			}
+			//if the queue is full, the render thread still wants a generation, so the next one is copied instead
+			if(!snapshots.offer(new Snapshot(generation, steps, null)))
+			{
+				generationWanted = true;
+			}
+		}
+	}
+	
+	/**
+	 * Publishes the best AI found thus far for {@link #renderLoop} to draw.
+	 * @param generation The number of generations that have been simulated so far.
+	 * @param bestAI The best AI found thus far.
+	 */
+	@Override
+	public void batchFinished(int generation, AIEv bestAI)
+	{
+		//a best AI dropped because the queue is full is soon replaced by the best AI of the next batch
+		snapshots.offer(new Snapshot(generation, null, bestAI));
+	}
+	
+	/**
+	 * Draws a single frame on the thread of {@link #renderLoop}. A frame is one step of the generation being shown, or 
+	 * the best AI if a new one has been published. Anything drawn is held on screen for the same waits a run has always 
+	 * used, but the render thread is parked while it waits and the engine never waits at all. Every snapshot published 
+	 * is taken out of {@link #snapshots} every frame, even while a frame is held, and any best AI published while 
+	 * another is being drawn or held is dropped in favour of the latest one.
+	 */
+	void drawFrame()
+	{
+		for(Snapshot snapshot = snapshots.poll(); snapshot != null; snapshot = snapshots.poll())
+		{
+			if(snapshot.population != null)
+			{
+				pendingGeneration = snapshot;
+				generationRequested = false;
+			}
+			else
+			{
+				pendingBatch = snapshot;
+			}
 		}
 		
-		//increase the label for this generation
-		GEN_COUNTER++;
-		
-		//make an ArrayList to hold all the AI for this generation
-		ArrayList<AIEv> arr = new ArrayList<AIEv>();
-		
-		//add new AI based on the best from the previous generation. Since that best AI will be included, start from 1.
-		for(int a = 1; a < AI_COUNT; a++)
+		long now = System.nanoTime();
+		if(now - holdUntil < 0)
 		{
-			arr.add(new AIEv(bestAI.steps, USABLE_WIDTH, tolerance, MUTATION_RATE));
+			return;
 		}
-		//add the best AI to the ArrayList
-		arr.add(bestAI);
 		
-		//If this is a non-silent run, then the following code displays all the steps in between the VIEW_RATE number of
-		//	generations.
-		if(!silent)
+		//keep drawing the generation being shown one step at a time
+		if(shownGeneration != null)
 		{
-			frame.setTitle(String.format("Generation %d", GEN_COUNTER));
-			int step = 0;
-			while(step < STEPS)
+			render(shownStep, shownGeneration.population);
+			shownStep++;
+			if(shownStep >= STEPS)
 			{
-				render(step, arr);
-				step++;
+				shownGeneration = null;
+				holdUntil = now + TimeUnit.MILLISECONDS.toNanos(WAIT_BETWEEN_GENERATIONS);
 			}
-			sleep(WAIT_BETWEEN_GENERATIONS);
+			return;
 		}
 		
-		//arbitrarily say 0th AI is the worst, but will immediately check that assumption
-		int indexOfBest = 0;
-		double scoreOfBest = Double.MAX_VALUE; //lowest possible score (explained below)
-		
-		//determines the best AI
-		for(int a = 0; a < arr.size(); a++)
+		//show the best AI whenever a new one has been found
+		Snapshot batch = pendingBatch;
+		if(batch != null)
 		{
-			//fitness function. Lower scores are better, and is determined by closeness to the center on average
-			double score = 0;
-			for(int x: arr.get(a).steps)
-			{
-				score += Math.abs(WIDTH / 2.0 - x);
-			}
-			
-			//code to set the score of the AI. Currently has no function, but functionality may be added in a future
-			//	update
-//			arr.get(a).score = score;
-			
-			//determines if this AI is better than the best or not according to the fitness function, and redefines which
-			//	is the best if necessary.
-			if(scoreOfBest > score)
-			{
-				indexOfBest = a;
-				scoreOfBest = score;
-			}
+			pendingBatch = null;
+			GEN_COUNTER = batch.generation;
+			showTitle(!SILENT_SIMULATE && GEN_COUNTER > 0 ? "Current Best AI" 
+					: String.format("Generation %d", GEN_COUNTER));
+			plotBest(batch.bestAI);
+			holdUntil = now + TimeUnit.MILLISECONDS.toNanos(SILENT_SIMULATE ? WAIT_BETWEEN_GENERATIONS : WAIT_AFTER_BEST);
+			return;
 		}
 		
-		//color the best AI
-		arr.get(indexOfBest).color = BEST_AI_COLOR;
+		//If this is a non-silent run, then the following code starts displaying all the steps of the latest generation.
+		Snapshot generation = pendingGeneration;
+		if(generation != null)
+		{
+			pendingGeneration = null;
+			shownGeneration = generation;
+			shownStep = 0;
+			GEN_COUNTER = generation.generation;
+			showTitle(String.format("Generation %d", GEN_COUNTER));
+			return;
+		}
 		
-		//call this method again until count is zero. Once count is zero, the best AI found within the given VIEW_RATE
-		//	will have been found.
-		return simulate(arr.get(indexOfBest), count - 1, tolerance, silent);
+		//nothing is left to draw, so ask the engine for the next generation
+		if(!SILENT_SIMULATE && !generationRequested)
+		{
+			generationRequested = true;
+			generationWanted = true;
+		}
 	}
 	
 	/**
-	 * Draws all given AI for a single given step for visual comparison. This will only be used in non-silent runs.
+	 * Draws all given AI for a single given step for visual comparison. This will only be used in non-silent runs. Every 
+	 * AI of a step is on the same rows, so the row is worked out once for all of them (whether or not each column is 
+	 * covered by any AI) and then copied into each row they cover, which takes the same time no matter how many AI 
+	 * overlap.
 	 * @param step The step to view.
-	 * @param arr An ArrayList of AI of which all will have this step drawn.
+	 * @param population The steps of every AI of a generation, {@link #STEPS} steps after another for each AI. Every AI 
+	 * will have this step drawn.
 	 */
-	public void render(int step, ArrayList<AIEv> arr)
+	public void render(int step, int[] population)
 	{
+		PhaseEvents.Render event = new PhaseEvents.Render();
+		event.begin();
+		int count = population.length / STEPS;
+		int width = image.getWidth();
+		int background = BACKGROUND_COLOR.getRGB();
+		
 		//draw the background
-		draw.setColor(BACKGROUND_COLOR);
-		draw.fillRect(0, 0, WIDTH, HEIGHT);
+		Arrays.fill(pixels, background);
 		
-		//draw all AI in arr but only their current step
-		for(AIEv ai: arr)
+		//mark where every AI but the last starts and ends. The last AI is the best AI of the previous generation, so it is 
+		//	drawn last and in its own color.
+		Arrays.fill(coverage, 0);
+		for(int a = 0; a < count - 1; a++)
 		{
-			//set color for the AI
-			draw.setColor(ai.color);
-			//the x coordinate is determined by the AI, every x coordinate has a unique y coordinate in ascending order 
-			//	(note that here, an ascending y value means going DOWN the screen), the final two parameters are width
-			//	 and height, which are the same since every step is a square
-			draw.fillRect(ai.get(step), step * STEP_SIZE, AI_SIZE, AI_SIZE);
+			int x = population[a * STEPS + step];
+			coverage[x]++;
+			coverage[Math.min(x + AI_SIZE, width)]--;
+		}
+		//a running sum of the marks is the number of AI covering each column
+		int covered = 0;
+		int color = DEFAULT_AI_COLOR.getRGB();
+		for(int x = 0; x < width; x++)
+		{
+			covered += coverage[x];
+			row[x] = covered > 0 ? color : background;
+		}
+		if(count > 0)
+		{
+			int x = population[(count - 1) * STEPS + step];
+			Arrays.fill(row, x, Math.min(x + AI_SIZE, width), BEST_AI_COLOR.getRGB());
 		}
-		this.getBufferStrategy().show();
 		
-		//a user determined pause to allow for greater or lesser visibility of each individual step
-		sleep(WAIT_BETWEEN_STEPS);
-	}
-	
-	/**
-	 * A method that checks if an AI is "perfect" determined by if every step falls in the center (integer division). 
-	 * @param ai 
-	 * @return a boolean. <b>{@code true}</b> if every step of the AI lands in the center of the canvas. Otherwise, 
-	 * <b>{@code false}</b>.
-	 */
-	public boolean isPerfect(AIEv ai)
-	{
-		int center = WIDTH / 2;
-		for(int x: ai.steps)
+		//every AI is a square, so the row is copied AI_SIZE times (note that here, an ascending y value means going DOWN 
+		//	the screen)
+		int top = step * STEP_SIZE;
+		for(int y = top; y < Math.min(top + AI_SIZE, image.getHeight()); y++)
+		{
+			System.arraycopy(row, 0, pixels, y * width, width);
+		}
+		present();
+		
+		event.end();
+		if(event.shouldCommit())
 		{
-			if(x != center)
-				return false;
+			event.generation = GEN_COUNTER;
+			event.aiCount = count;
+			event.steps = 1;
+			event.commit();
 		}
-		return true;
 	}
 	
 	/**
@@ -668,142 +814,138 @@ public class AI_Evolution extends Canvas
 	 */
 	public void plotBest(AIEv bestAI)
 	{
+		PhaseEvents.Render event = new PhaseEvents.Render();
+		event.begin();
+		int width = image.getWidth();
+		int height = image.getHeight();
 		
 		//draw the background
-		draw.setColor(BACKGROUND_COLOR);
-		draw.fillRect(0, 0, WIDTH, HEIGHT);
+		Arrays.fill(pixels, BACKGROUND_COLOR.getRGB());
 		
 		//set color for the best AI
-		draw.setColor(BEST_AI_COLOR);
+		int color = BEST_AI_COLOR.getRGB();
 		//contains the current step in the y direction, starting at 0
 		int step = 0;
 		for(int curstep: bestAI.steps)
 		{
 			//the x coordinate is determined by the AI, every x coordinate has a unique y coordinate in ascending order 
-			//	(note that here, an ascending y value means going DOWN the screen), the final two parameters are width
-			//	 and height, which are the same since every step is a square
-			draw.fillRect(curstep, step * STEP_SIZE, AI_SIZE, AI_SIZE);
+			//	(note that here, an ascending y value means going DOWN the screen), and every step is a square of 
+			//	AI_SIZE pixels
+			int top = step * STEP_SIZE;
+			for(int y = top; y < Math.min(top + AI_SIZE, height); y++)
+			{
+				Arrays.fill(pixels, y * width + curstep, y * width + Math.min(curstep + AI_SIZE, width), color);
+			}
 			//increase the y value
 			step++;
 		}
 		
-		this.getBufferStrategy().show();
+		present();
 		
-		if(SILENT_SIMULATE)
-			sleep(WAIT_BETWEEN_GENERATIONS);
-		else
-			sleep(WAIT_AFTER_BEST);
+		event.end();
+		if(event.shouldCommit())
+		{
+			event.generation = GEN_COUNTER;
+			event.aiCount = 1;
+			event.steps = bestAI.steps.length;
+			event.commit();
+		}
 	}
 	
 	/**
-	 * A sleep method meant to halt the program until the set amount of time has passed. This method is primarily used 
-	 * for waiting between drawing to the screen for the user to see what has been drawn.
-	 * @param milliseconds An int representing the number of milliseconds to be awaited.
+	 * Sets the title of {@link #frame} on the event dispatch thread, which every title is set on in order, whichever
+	 * thread it comes from.
+	 * @param title The new title.
 	 */
-	public void sleep(int milliseconds)
+	void showTitle(String title)
 	{
-		long time = System.currentTimeMillis() + milliseconds;
-		while(time > System.currentTimeMillis()) {}
+		SwingUtilities.invokeLater(() -> frame.setTitle(title));
 	}
 	
 	/**
-	 * Sets the BufferStrategy for this canvas and instantiates {@link #draw}
+	 * Copies {@link #image} to the next buffer of this canvas' BufferStrategy in a single call and shows it. If the
+	 * buffer is lost along the way, which can happen to buffers kept in video memory, it is simply drawn again.
 	 */
-	public void setBufferStrategy()
+	public void present()
 	{
-		this.createBufferStrategy(1);
-		//wait for the the BufferStrategy to be set before continuing, seems to need time to process to prevent 
-		//	flickering and loss of content.
-		sleep(WAIT_AFTER_BUFFERSTRATEGY_CREATION);
-		
-		//instantiate draw, so that objects may be drawn to the canvas
-		draw = this.getBufferStrategy().getDrawGraphics();
+		BufferStrategy strategy = this.getBufferStrategy();
+		do
+		{
+			do
+			{
+				Graphics draw = strategy.getDrawGraphics();
+				draw.drawImage(image, 0, 0, null);
+				draw.dispose();
+			}
+			while(strategy.contentsRestored());
+			strategy.show();
+		}
+		while(strategy.contentsLost());
+		//without this, some window systems hold on to the frame instead of showing it straight away
+		Toolkit.getDefaultToolkit().sync();
 	}
-}
-
-/**
- * This class is the actual AI to be used by AI_Evolution
- * @author Joshua Rissman
- *
- */
-class AIEv
-{
-	/** The color value AI will take by default upon creation */
-	Color color = AI_Evolution.DEFAULT_AI_COLOR;
-	/** 
-	 * This does not yet do anything. I have left it in case I decide to expand on the functionality and show scores or 
-	 * something to that effect.
-	 */
-	double score = 0;
-	/** Holds the integer representation for the horizontal (x-values) of the steps that make up this AI. */
-	ArrayList<Integer> steps = new ArrayList<Integer>();
 	
 	/**
-	 * A constructor that builds an AI based on a given AI that it will randomly deviate from depending on mutation rate
-	 * and step size ({@code tolerance})
-	 * @param steps An ArrayList of the steps of a parent AI for this AI to be based on.
-	 * @param frameWidth The width of the frame this AI is drawn in. Determines the limits of how far to the left and 
-	 * right it can go. 
-	 * @param tolerance The distance horizontally that the AI can move in one step.
-	 * @param rateOfMutation The mutation rate of this AI. In other words, how likely it is that one of its parents steps
-	 * are to be different from its own.
+	 * A sleep method meant to halt the program until the set amount of time has passed. This method is primarily used 
+	 * for waiting between drawing to the screen for the user to see what has been drawn. The thread is parked while it 
+	 * waits, so waiting does not keep a core busy.
+	 * @param milliseconds An int representing the number of milliseconds to be awaited.
 	 */
-	public AIEv(ArrayList<Integer> steps, int frameWidth, int tolerance, double rateOfMutation)
+	public void sleep(int milliseconds)
 	{
-		for(int num: steps)
+		long time = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(milliseconds);
+		//parkNanos may return early, so keep parking until the time has actually passed
+		for(long left = time - System.nanoTime(); left > 0; left = time - System.nanoTime())
 		{
-			//Checks for mutation by seeing if a random number is less than or equal to it
-			//	fun fact: this if-statement could be rewritten as "if((int)(Math.random() / rateOfMutation) == 0)"
-			if(Math.random() <= rateOfMutation)
-			{
-				//"num +" makes the new step related to its predecessor (the original AI's step). 
-				//	Math.round(Math.random() * tolerance * 2 - tolerance) makes it so that there is an equal chance of 
-				//	stepping left or right (the limit of newStep as Math.random() approaches 0 is num - tolerance, whereas
-				//	the of newStep limit as Math.random() approaches 1 is num + tolerance).
-				int newStep = (int) (num + Math.round(Math.random() * tolerance * 2 - tolerance));
-				
-				//prevent the newStep from exceeding the width of the frame by rounding it to either edge
-				if(newStep >= frameWidth)
-				{
-					newStep = frameWidth;
-				}
-				else if(newStep < 0)
-				{
-					newStep = 0;
-				}
-				this.steps.add(newStep);
-			}
-			else
-			{
-				this.steps.add(num);
-			}
+			LockSupport.parkNanos(left);
 		}
 	}
 	
 	/**
-	 * A constructor that builds and AI from scratch. This AI has no limit on how far it can step horizontally so that it 
-	 * may start off purely random.
-	 * @param steps An ArrayList of the steps of a parent AI for this AI to be based on.
-	 * @param frameWidth The width of the frame this AI is drawn in. Determines the limits of how far to the left and 
-	 * right it can go.
+	 * Sets the BufferStrategy for this canvas and instantiates {@link #image}, which every frame is drawn into.
 	 */
-	public AIEv(int stepsAllowed, int frameWidth)
+	public void setBufferStrategy()
 	{
-		steps = new ArrayList<Integer>();
-		for(int a = 0; a < stepsAllowed; a++)
-		{
-			int step = (int)Math.round(Math.random() * frameWidth);
-			this.steps.add(step);
-		}
+		this.createBufferStrategy(BUFFERS);
+		//wait for the the BufferStrategy to be set before continuing, seems to need time to process to prevent 
+		//	flickering and loss of content.
+		sleep(WAIT_AFTER_BUFFERSTRATEGY_CREATION);
+		
+		//instantiate image, so that frames may be drawn straight into its pixels. The image is as large as the frame, so 
+		//	it covers the whole canvas.
+		image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		row = new int[WIDTH];
+		coverage = new int[WIDTH + 1];
 	}
 	
 	/**
-	 * A standard "getter" method so outside classes can access the steps without modifying them.
-	 * @param step The index of the step the user wants to retrieve
-	 * @return an int which represents the horizontal placement (x-value) of this particular step.
+	 * The results of a generation or batch, as published by {@link #engine} for {@link #renderLoop} to draw. Nothing in
+	 * a snapshot is changed once it has been published.
 	 */
-	public int get(int step)
+	static class Snapshot
 	{
-		return steps.get(step);
+		/** The number of generations that had been simulated when this was published. */
+		final int generation;
+		/** 
+		 * The steps of a sample of the AI of the generation, one AI after another with the parent last, or null if only 
+		 * the best AI was published.
+		 */
+		final int[] population;
+		/** The best AI found thus far, or null if only a generation was published. */
+		final AIEv bestAI;
+		
+		/**
+		 * @param generation The number of generations that had been simulated when this was published.
+		 * @param population The steps of a sample of the AI of the generation, one AI after another with the parent last, 
+		 * or null if only the best AI was published.
+		 * @param bestAI The best AI found thus far, or null if only a generation was published.
+		 */
+		Snapshot(int generation, int[] population, AIEv bestAI)
+		{
+			this.generation = generation;
+			this.population = population;
+			this.bestAI = bestAI;
+		}
 	}
 }
@@ -0,0 +1,104 @@
+package evolution;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Shrinks the rate and tolerance whenever the best score stops improving, like the temperature of simulated annealing. 
+ * Every {@code patience} generations without an improvement halve the tolerance and shrink the rate by a smaller 
+ * amount, so that the AI search ever closer around the best. If the best score still does not improve once both have 
+ * reached their smallest scale, they are reset to the full rate and tolerance, so that a run stuck with too small a 
+ * tolerance can jump out again.
+ */
+class AnnealingSchedule implements MutationSchedule
+{
+	/** The number of generations without an improvement before cooling when no patience is given. */
+	static final int DEFAULT_PATIENCE = 3;
+	/** The number the tolerance scale is multiplied by whenever the schedule cools. */
+	static final double TOLERANCE_COOLING = 0.5;
+	/** The number the rate scale is multiplied by whenever the schedule cools. */
+	static final double RATE_COOLING = 0.8;
+	
+	/** The name this schedule was created with. */
+	final String name;
+	/** The number of generations without an improvement before cooling. */
+	final int patience;
+	/** The scale of the mutation rate. */
+	double rateScale = 1;
+	/** The scale of the tolerance. */
+	double toleranceScale = 1;
+	/** The best score found so far. */
+	double best = Double.MAX_VALUE;
+	/** The number of generations since the best score last improved or the schedule last cooled. */
+	int stagnant;
+	
+	/**
+	 * @param name The name this schedule was created with.
+	 * @param patience The number of generations without an improvement before cooling.
+	 */
+	AnnealingSchedule(String name, int patience)
+	{
+		this.name = name;
+		this.patience = patience;
+	}
+	
+	@Override
+	public double rateScale()
+	{
+		return rateScale;
+	}
+	
+	@Override
+	public double toleranceScale()
+	{
+		return toleranceScale;
+	}
+	
+	@Override
+	public void generationFinished(int generation, double scoreOfBest)
+	{
+		if(scoreOfBest < best)
+		{
+			best = scoreOfBest;
+			stagnant = 0;
+			return;
+		}
+		if(++stagnant < patience)
+		{
+			return;
+		}
+		stagnant = 0;
+		
+		//fully cooled and still stuck, so start again from the full rate and tolerance
+		if(toleranceScale == MIN_SCALE && rateScale == MIN_SCALE)
+		{
+			rateScale = 1;
+			toleranceScale = 1;
+		}
+		else
+		{
+			rateScale = Math.max(MIN_SCALE, rateScale * RATE_COOLING);
+			toleranceScale = Math.max(MIN_SCALE, toleranceScale * TOLERANCE_COOLING);
+		}
+	}
+	
+	@Override
+	public void save(ByteBuffer state)
+	{
+		state.putDouble(rateScale).putDouble(toleranceScale).putDouble(best).putInt(stagnant);
+	}
+	
+	@Override
+	public void restore(ByteBuffer state)
+	{
+		rateScale = state.getDouble();
+		toleranceScale = state.getDouble();
+		best = state.getDouble();
+		stagnant = state.getInt();
+	}
+	
+	@Override
+	public String name()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,378 @@
+package evolution;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped file that holds the latest state of an {@link EvolutionEngine}, so that a run can be picked up again
+ * after its process has been stopped. Every AI is built from random numbers seeded from the master seed, the generation
+ * and its index (see {@link EvolutionRandom}), and every parent is picked the same way, so the parameters, the seed,
+ * the generation, the state of the mutation schedule and the parents of the next generation are all a run needs to
+ * carry on exactly as if it had never stopped.
+ * <p>
+ * The file starts with a header: the magic number {@link #MAGIC}, the {@link #VERSION} of the format, the width, usable
+ * width, steps, AI count and tolerance as ints, the mutation rate as a double, the master seed as a long, the index of
+ * the slot holding the latest checkpoint as an int (or -1 before the first one), the number of parents as an int, and
+ * then the names of the selection strategy, mutation schedule, population store and fitness kernel, each as its length
+ * in bytes as an int followed by its bytes in UTF-8. Two slots follow, each holding the generation as an int, the
+ * number of AI skipped as clones as a long, {@link MutationSchedule#STATE_BYTES} bytes of the state of the schedule (see
+ * {@link MutationSchedule#save(java.nio.ByteBuffer)}), and then every parent of the next generation, best first, as its
+ * score as a double and every step as an int. All of it is big-endian.
+ * </p>
+ * <p>
+ * A file of version 1 ends its header at the index of the latest slot, and holds no state of the schedule and a single
+ * parent in each slot. It can only be resumed by a run with a single parent picked by "top-k" and a "fixed" schedule,
+ * since it does not record anything else.
+ * </p>
+ * <p>
+ * Each checkpoint is written into the slot not holding the latest one, straight into the mapped file, and only the
+ * steps that differ from what that slot already holds are written. The slot is forced to disk before the header is
+ * switched over to it, so a process killed part way through a checkpoint still leaves the one before it intact.
+ * </p>
+ */
+class Checkpoint implements AutoCloseable
+{
+	/** The first four bytes of every checkpoint file, "AIEv". */
+	static final int MAGIC = 0x41494576;
+	/** The version of the format written by this class. Files of version 1 can still be read. */
+	static final int VERSION = 2;
+	/** The number of bytes in the part of the header every version starts with, which is all of version 1's. */
+	static final int HEADER_BYTES = 2 * Integer.BYTES + 5 * Integer.BYTES + Double.BYTES + Long.BYTES + Integer.BYTES;
+	/** Where the index of the slot holding the latest checkpoint is in the header. */
+	static final int LATEST_SLOT = HEADER_BYTES - Integer.BYTES;
+	/** The number of bytes in front of the state of the schedule of each slot. */
+	static final int SLOT_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+	
+	/** The file the checkpoints are written to. */
+	final FileChannel channel;
+	/** The whole file, mapped into memory. */
+	final MappedByteBuffer file;
+	/** The version of the format of the file. */
+	final int version;
+	/** The number of steps each AI takes. */
+	final int steps;
+	/** The number of parents in each slot. */
+	final int parentCount;
+	/** 
+	 * The names of the selection strategy, mutation schedule, population store and fitness kernel, or null in a file of
+	 * version 1.
+	 */
+	final String selection, schedule, store, kernel;
+	/** The number of bytes of the state of the schedule in each slot. */
+	final int stateBytes;
+	/** Where the first slot starts, right after the header. */
+	final int slotsStart;
+	/** The number of bytes of each parent in a slot. */
+	final int parentBytes;
+	/** The number of bytes in each slot. */
+	final int slotBytes;
+	
+	/**
+	 * Maps a checkpoint file.
+	 * @param channel The file, opened for reading and writing.
+	 * @param version The version of the format of the file.
+	 * @param steps The number of steps each AI takes.
+	 * @param parentCount The number of parents in each slot.
+	 * @param names The names of the selection strategy, mutation schedule, population store and fitness kernel, or null
+	 * in a file of version 1.
+	 * @param slotsStart Where the first slot starts.
+	 * @throws IOException Thrown if the file could not be mapped.
+	 */
+	private Checkpoint(FileChannel channel, int version, int steps, int parentCount, String[] names, int slotsStart)
+			throws IOException
+	{
+		this.channel = channel;
+		this.version = version;
+		this.steps = steps;
+		this.parentCount = parentCount;
+		selection = names == null ? null : names[0];
+		schedule = names == null ? null : names[1];
+		store = names == null ? null : names[2];
+		kernel = names == null ? null : names[3];
+		stateBytes = version > 1 ? MutationSchedule.STATE_BYTES : 0;
+		this.slotsStart = slotsStart;
+		parentBytes = Double.BYTES + steps * Integer.BYTES;
+		slotBytes = SLOT_HEADER_BYTES + stateBytes + parentCount * parentBytes;
+		file = channel.map(FileChannel.MapMode.READ_WRITE, 0, slotsStart + 2L * slotBytes);
+	}
+	
+	/**
+	 * Creates a new checkpoint file for a run, replacing any file already there. It holds no checkpoint until
+	 * {@link #write(int, long, AIEv[], MutationSchedule)} is first called.
+	 * @param path Where to create the file.
+	 * @param engine The engine whose parameters and seed the file is for.
+	 * @return the new checkpoint file.
+	 * @throws IOException Thrown if the file could not be created.
+	 */
+	static Checkpoint create(Path path, EvolutionEngine engine) throws IOException
+	{
+		String[] names = {engine.SELECTION, engine.SCHEDULE, engine.STORE, engine.KERNEL.name()};
+		int slotsStart = HEADER_BYTES + Integer.BYTES;
+		for(String name: names)
+		{
+			slotsStart += Integer.BYTES + name.getBytes(StandardCharsets.UTF_8).length;
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		Checkpoint checkpoint = new Checkpoint(channel, VERSION, engine.STEPS, engine.PARENTS, names, slotsStart);
+		checkpoint.file.putInt(MAGIC).putInt(VERSION).putInt(engine.WIDTH).putInt(engine.USABLE_WIDTH)
+				.putInt(engine.STEPS).putInt(engine.AI_COUNT).putInt(engine.TOLERANCE).putDouble(engine.MUTATION_RATE)
+				.putLong(engine.SEED).putInt(-1).putInt(engine.PARENTS);
+		for(String name: names)
+		{
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			checkpoint.file.putInt(bytes.length).put(bytes);
+		}
+		checkpoint.file.force(0, slotsStart);
+		return checkpoint;
+	}
+	
+	/**
+	 * Opens an existing checkpoint file, which further checkpoints of the resumed run are written to.
+	 * @param path The file to open.
+	 * @return the checkpoint file.
+	 * @throws IOException Thrown if the file could not be opened, is not a checkpoint file of a version that can be
+	 * read, is cut short, or holds no checkpoint yet.
+	 */
+	static Checkpoint open(Path path) throws IOException
+	{
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			//the header is read on its own first, since it decides how much of the file to map
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(),
+					Integer.MAX_VALUE));
+			if(header.capacity() < HEADER_BYTES || header.getInt(0) != MAGIC)
+			{
+				throw new IOException(path + " is not a checkpoint file.");
+			}
+			int version = header.getInt(Integer.BYTES);
+			if(version != 1 && version != VERSION)
+			{
+				throw new IOException(path + " is a checkpoint file of version " + version + ", but only versions 1 "
+						+ "and " + VERSION + " can be read.");
+			}
+			int steps = header.getInt(4 * Integer.BYTES);
+			int parentCount = 1;
+			String[] names = null;
+			if(version > 1)
+			{
+				try
+				{
+					header.position(HEADER_BYTES);
+					parentCount = header.getInt();
+					names = new String[4];
+					for(int i = 0; i < names.length; i++)
+					{
+						byte[] bytes = new byte[header.getInt()];
+						header.get(bytes);
+						names[i] = new String(bytes, StandardCharsets.UTF_8);
+					}
+				}
+				catch(BufferUnderflowException | NegativeArraySizeException ex)
+				{
+					throw new IOException(path + " is cut short part way through its header.");
+				}
+			}
+			int slotsStart = version > 1 ? header.position() : HEADER_BYTES;
+			int stateBytes = version > 1 ? MutationSchedule.STATE_BYTES : 0;
+			if(steps <= 0 || parentCount <= 0 || channel.size() < slotsStart + 2L * (SLOT_HEADER_BYTES + stateBytes
+					+ parentCount * (Double.BYTES + (long) steps * Integer.BYTES)))
+			{
+				throw new IOException(path + " is cut short, or its header is corrupt.");
+			}
+			Checkpoint checkpoint = new Checkpoint(channel, version, steps, parentCount, names, slotsStart);
+			if(checkpoint.latestSlot() < 0)
+			{
+				throw new IOException(path + " does not hold a checkpoint yet.");
+			}
+			return checkpoint;
+		}
+		catch(IOException | RuntimeException ex)
+		{
+			channel.close();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * @return a new engine with the parameters, seed and parents of the run this file is for, and the same selection
+	 * strategy, mutation schedule, population store and fitness kernel. An engine for a file of version 1 keeps the
+	 * defaults of those.
+	 */
+	EvolutionEngine engine()
+	{
+		EvolutionEngine engine = new EvolutionEngine(file.getInt(2 * Integer.BYTES), file.getInt(3 * Integer.BYTES),
+				file.getInt(4 * Integer.BYTES), file.getInt(5 * Integer.BYTES), file.getInt(6 * Integer.BYTES),
+				file.getDouble(7 * Integer.BYTES));
+		engine.SEED = file.getLong(7 * Integer.BYTES + Double.BYTES);
+		engine.PARENTS = parentCount;
+		if(version > 1)
+		{
+			engine.SELECTION = selection;
+			engine.SCHEDULE = schedule;
+			engine.STORE = store;
+			engine.KERNEL = FitnessKernel.named(kernel);
+		}
+		return engine;
+	}
+	
+	/**
+	 * Checks whether an engine picks its parents and adapts its mutations the same way as the run this file is for,
+	 * since it would not carry on that run otherwise. The population store and fitness kernel give the same results
+	 * whichever is used, so they are not checked.
+	 * @param engine The engine to resume the run with.
+	 * @throws IllegalArgumentException Thrown if the engine has another number of parents, selection strategy or 
+	 * mutation schedule than the run, or, for a file of version 1, anything but a single parent picked by "top-k" and a 
+	 * "fixed" schedule.
+	 */
+	void check(EvolutionEngine engine) throws IllegalArgumentException
+	{
+		if(version == 1 && (engine.PARENTS != 1 || !engine.SELECTION.equals("top-k") 
+				|| !engine.SCHEDULE.equals("fixed")))
+		{
+			throw new IllegalArgumentException("A checkpoint file of version 1 only holds runs with a single parent "
+					+ "picked by top-k and a fixed schedule, not " + engine.PARENTS + " picked by " + engine.SELECTION 
+					+ " and a " + engine.SCHEDULE + " schedule.");
+		}
+		if(version > 1 && (engine.PARENTS != parentCount || !engine.SELECTION.equals(selection)
+				|| !engine.SCHEDULE.equals(schedule)))
+		{
+			throw new IllegalArgumentException("The checkpoint is of a run with " + parentCount + " parents picked by "
+					+ selection + " and a " + schedule + " schedule, not " + engine.PARENTS + " picked by " 
+					+ engine.SELECTION + " and a " + engine.SCHEDULE + " schedule.");
+		}
+	}
+	
+	/**
+	 * @return the index of the slot holding the latest checkpoint, or -1 if there is none.
+	 */
+	int latestSlot()
+	{
+		return file.getInt(LATEST_SLOT);
+	}
+	
+	/**
+	 * @param slot The index of a slot.
+	 * @return where that slot starts in the file.
+	 */
+	int slotStart(int slot)
+	{
+		return slotsStart + slot * slotBytes;
+	}
+	
+	/**
+	 * @param slot The index of a slot.
+	 * @param j The index of a parent, from 0 up to the number of parents.
+	 * @return where that parent starts in the file, with its score.
+	 */
+	int parentStart(int slot, int j)
+	{
+		return slotStart(slot) + SLOT_HEADER_BYTES + stateBytes + j * parentBytes;
+	}
+	
+	/**
+	 * @return the generation of the latest checkpoint.
+	 */
+	int generation()
+	{
+		return file.getInt(slotStart(latestSlot()));
+	}
+	
+	/**
+	 * @return the number of AI the run had skipped as clones as of the latest checkpoint.
+	 */
+	long clonesSkipped()
+	{
+		return file.getLong(slotStart(latestSlot()) + Integer.BYTES);
+	}
+	
+	/**
+	 * Sets a schedule back to its state as of the latest checkpoint. A file of version 1 holds no state, which is only
+	 * right for a "fixed" schedule.
+	 * @param schedule A new schedule with the name the run was checkpointed with.
+	 */
+	void restore(MutationSchedule schedule)
+	{
+		if(stateBytes > 0)
+		{
+			schedule.restore(file.slice(slotStart(latestSlot()) + SLOT_HEADER_BYTES, stateBytes));
+		}
+	}
+	
+	/**
+	 * @return a copy of every parent of the latest checkpoint, best first, already scored. The first is the best AI
+	 * of the run so far.
+	 */
+	AIEv[] parents()
+	{
+		AIEv[] parents = new AIEv[parentCount];
+		for(int j = 0; j < parentCount; j++)
+		{
+			int start = parentStart(latestSlot(), j);
+			int[] copy = new int[steps];
+			for(int step = 0; step < steps; step++)
+			{
+				copy[step] = file.getInt(start + Double.BYTES + step * Integer.BYTES);
+			}
+			parents[j] = new AIEv(copy, file.getDouble(start));
+		}
+		return parents;
+	}
+	
+	/**
+	 * Writes a checkpoint and forces it to disk.
+	 * @param generation The number of generations that have been simulated so far.
+	 * @param clonesSkipped The number of AI skipped as clones so far.
+	 * @param parents Every parent of the next generation, best first, as many as the file holds. They must already be
+	 * scored.
+	 * @param schedule The schedule of the run, as of the end of the generation just built.
+	 */
+	void write(int generation, long clonesSkipped, AIEv[] parents, MutationSchedule schedule)
+	{
+		int slot = latestSlot() == 0 ? 1 : 0;
+		int start = slotStart(slot);
+		if(stateBytes > 0)
+		{
+			schedule.save(file.slice(start + SLOT_HEADER_BYTES, stateBytes));
+		}
+		
+		//the slot still holds the checkpoint before the latest one, whose parents are usually mostly the same, so only
+		//	the steps that have changed since are written
+		int last = 0;
+		for(int j = 0; j < parentCount; j++)
+		{
+			int parent = parentStart(slot, j);
+			file.putDouble(parent, parents[j].score);
+			last = parent - start + Double.BYTES;
+			for(int step = 0; step < steps; step++)
+			{
+				int index = parent + Double.BYTES + step * Integer.BYTES;
+				if(file.getInt(index) != parents[j].steps[step])
+				{
+					file.putInt(index, parents[j].steps[step]);
+					last = index - start + Integer.BYTES;
+				}
+			}
+		}
+		file.putInt(start, generation);
+		file.putLong(start + Integer.BYTES, clonesSkipped);
+		
+		//only the pages up to the last step that was written are forced, and the slot is on disk before the header
+		//	points to it
+		file.force(start, Math.max(SLOT_HEADER_BYTES + stateBytes, last));
+		file.putInt(LATEST_SLOT, slot);
+		file.force(LATEST_SLOT, Integer.BYTES);
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
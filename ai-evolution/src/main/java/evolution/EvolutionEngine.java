@@ -0,0 +1,1095 @@
+package evolution;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+
+/**
+ * The headless core of the simulation. This class holds everything the evolution itself needs (the population, the
+ * fitness function, {@link #simulate(AIEv, int, int)} and {@link #isPerfect(AIEv)}) and nothing to do with drawing, so it
+ * can run on machines without a display. {@link AI_Evolution} drives an engine and draws it through the
+ * {@link EvolutionObserver} interface, while {@link #main(String[])} runs an engine on its own.
+ */
+public class EvolutionEngine
+{
+	/** The width the AI are scored against. The center of this width is where a perfect AI steps. */
+	int WIDTH;
+	/** The largest x-value a step can have. */
+	int USABLE_WIDTH;
+	/** The number of steps the AI will have to take on their descent. */
+	int STEPS;
+	/** The number of AI per generation. */
+	int AI_COUNT;
+	/** The horizontal distance the AI can travel each step. */
+	int TOLERANCE;
+	/** The rate at which mutation can occur. */
+	double MUTATION_RATE;
+	/** Keeps track of the number of generations that have been simulated. */
+	int GEN_COUNTER = 0;
+	/** 
+	 * Determines whether or not {@link #simulate(AIEv, int, int)} stops at the first generation whose best AI is perfect,
+	 * rather than at the end of the batch. Every AI keeps count of its off-center steps as it is built, so this costs 
+	 * nothing per generation.
+	 */
+	boolean STOP_WHEN_PERFECT = true;
+	/**
+	 * Determines whether or not each generation is built and scored across all available cores. The best AI found is the
+	 * same one a single core would find, since ties are still won by the lowest index.
+	 */
+	boolean PARALLEL_SIMULATE = true;
+	/** The smallest number of AI handed to a single core at a time when {@link #PARALLEL_SIMULATE} is true. */
+	int PARALLEL_CHUNK_SIZE = 256;
+	/** 
+	 * Determines whether or not an AI built from a scored parent is scored by only looking at the steps it mutated 
+	 * (see {@link #score(AIEv)}). Setting this to false scores every AI from scratch, which gives the same scores.
+	 */
+	boolean INCREMENTAL_FITNESS = true;
+	/** 
+	 * Works out the fitness function whenever steps are scored from scratch, and checks whether or not an AI is 
+	 * perfect. 
+	 */
+	FitnessKernel KERNEL = new ScalarFitnessKernel();
+	/** 
+	 * The kind of {@link PopulationStore} every generation is kept in: "heap", or "agent-major" or "gene-major" to keep 
+	 * the population outside of the heap (see {@link OffHeapPopulationStore}). All three give the same results. A
+	 * gene-major generation is scored without the {@link #KERNEL}, which only ever scores the best AI then.
+	 */
+	String STORE = "heap";
+	/** 
+	 * How the parents of every generation are picked from the generation before it: "top-k", "proportional" or 
+	 * "tournament" (see {@link SelectionStrategy#named(String, int)}). The best AI is always the first parent.
+	 */
+	String SELECTION = "top-k";
+	/** 
+	 * The number of parents every generation is built from. With a single parent, every generation is built from the 
+	 * best AI of the generation before it.
+	 */
+	int PARENTS = 1;
+	/** 
+	 * How the mutation rate and tolerance adapt as a run goes on: "fixed", "one-fifth" or "anneal" (see 
+	 * {@link MutationSchedule#named(String)}). {@link #MUTATION_RATE} and the tolerance are the largest they can be.
+	 */
+	String SCHEDULE = "fixed";
+	/** 
+	 * Keeps track of the number of AI this run that drew no mutations that changed a step, and so were never built or 
+	 * scored (see {@link AIEv#mutate(AIEv, int, int, double, java.util.random.RandomGenerator)}).
+	 */
+	final LongAdder CLONES_SKIPPED = new LongAdder();
+	/** Keeps track of the number of steps this run that were mutated to a new x-value. */
+	final LongAdder MUTATIONS = new LongAdder();
+	/** 
+	 * The master seed of the run. Every AI is built from a stream of random numbers seeded from this, the generation 
+	 * and its index (see {@link EvolutionRandom}), so two runs with the same seed produce the same AI and finish at the 
+	 * same generation, no matter how many cores they are run on.
+	 */
+	long SEED = ThreadLocalRandom.current().nextLong();
+	/** The file the state of the run is written to every {@link #CHECKPOINT_INTERVAL} generations, if any. */
+	Checkpoint CHECKPOINT = null;
+	/** 
+	 * The least number of generations between two checkpoints. Checkpoints are only written between batches, so they 
+	 * are written at the end of the first batch at least this many generations after the last one.
+	 */
+	int CHECKPOINT_INTERVAL = 500;
+	/** Records the best, mean and worst score and more of every generation to a file, if there is one. */
+	TelemetryLog TELEMETRY = null;
+	/** Exposes the progress of this engine over JMX, if it has been registered (see {@link EvolutionMetrics}). */
+	EvolutionMetrics METRICS = null;
+	/** 
+	 * The two stores every generation is built in and the parents picked from them. Allocated by the first call to 
+	 * {@link #simulate(AIEv, int, int)}.
+	 */
+	PopulationArena arena;
+	/** 
+	 * The state of {@link #SCHEDULE} for the current run. Created again by {@link #start()} and 
+	 * {@link #resume(Checkpoint)}.
+	 */
+	MutationSchedule schedule;
+	/** Receives every update of this engine. The default observer ignores them all. */
+	EvolutionObserver observer = new EvolutionObserver() {};
+	
+	/** 
+	 * The options {@link #main(String[])} does not take with {@code --resume}, since the checkpoint already decides them
+	 * or the run they start would not carry on from it. A resumed run always writes its checkpoints back to the file it
+	 * was resumed from.
+	 */
+	static final String[] RESUME_CONFLICTS = {"--seed=", "--islands=", "--workers=", "--scaling=", "--checkpoint="};
+	
+	/** How to run {@link #main(String[])}. */
+	static final String USAGE = "Usage: java evolution.EvolutionEngine [width height step_size ai_count ai_size view_rate "
+			+ "tolerance mutation_rate] [--seed=<seed>] [--sequential] [--kernel=scalar|vector] [--full-fitness] "
+			+ "[--store=heap|agent-major|gene-major] [--selection=top-k|proportional|tournament[:<size>]] "
+			+ "[--parents=<count>] [--schedule=fixed|one-fifth[:<window>]|anneal[:<patience>]] [--islands=<count>] "
+			+ "[--migration-interval=<generations>] [--topology=ring|full] [--workers=<count>] [--listen=<port>] "
+			+ "[--scaling=<generations>] "
+			+ "[--checkpoint=<file>] [--checkpoint-interval=<generations>] [--resume=<file>] "
+			+ "[--telemetry=<file>] [--profile=<file>]";
+	
+	/**
+	 * Runs a headless simulation, printing the best score after every batch of generations.
+	 * @param args Either nothing, to run with the default parameters, or {@code width height step_size ai_count ai_size
+	 * view_rate tolerance mutation_rate}. Either can be followed by any of the options {@code --seed=<seed>}, to 
+	 * reproduce an earlier run, {@code --sequential}, to run on a single core, {@code --kernel=<scalar|vector>}, to pick 
+	 * the {@link FitnessKernel}, {@code --full-fitness}, to score every AI from scratch, and 
+	 * {@code --store=<heap|agent-major|gene-major>}, to pick the {@link PopulationStore}. {@code --parents=<count>} builds
+	 * every generation from that many parents (1 by default), picked by 
+	 * {@code --selection=<top-k|proportional|tournament[:size]>} (top-k by default, see {@link SelectionStrategy}). 
+	 * {@code --schedule=<fixed|one-fifth[:window]|anneal[:patience]>} adapts the mutation rate and tolerance to how the
+	 * run is improving (fixed by default, see {@link MutationSchedule}). {@code --islands=<count>} runs that many engines
+	 * at once as an {@link IslandModel}, which exchange their best AI every {@code --migration-interval=<generations>}
+	 * (the view rate by default) over the {@code --topology=<ring|full>} (ring by default). {@code --workers=<count>}
+	 * runs the islands in that many separate processes instead, through an {@link IslandCoordinator} which starts them
+	 * itself, or with {@code --listen=<port>} waits for them to connect to that port. {@code --scaling=<generations>} 
+	 * measures the throughput of 1 up to that many workers over the given number of generations instead of running
+	 * until a perfect AI is found. {@code --checkpoint=<file>} writes the state of the run to that file every 
+	 * {@code --checkpoint-interval=<generations>} (500 by default), and 
+	 * {@code --resume=<file>} carries on the run in that file with its own parameters, seed, parents, selection and 
+	 * schedule, writing further checkpoints to the same file, and cannot be given the parameters or any of 
+	 * {@link #RESUME_CONFLICTS}. {@code --telemetry=<file>} records statistics about every generation to that file, 
+	 * as comma-separated values if it ends in ".csv" or otherwise in binary (see {@link TelemetryLog}). A single engine is
+	 * registered over JMX as "evolution:type=EvolutionEngine,name=EvolutionEngine" (see {@link EvolutionMetrics}), and
+	 * {@code --profile=<file>} records every phase of every generation with Java Flight Recorder to that file and prints
+	 * a latency histogram of each phase at the end (see {@link PhaseProfile}).
+	 * @throws IOException Thrown if a worker could not be started, if the connection to any worker fails, if a 
+	 * checkpoint file could not be created or opened, or if a recording could not be written or read.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		//the defaults match the defaults of AI_Evolution
+		int width = 500;
+		int height = 500;
+		int stepSize = 5;
+		int aiCount = 1000;
+		int aiSize = 5;
+		int viewRate = 100;
+		int tolerance = width;
+		double mutationRate = 1.0 / 95.0;
+		
+		//options start with "--" and may come in any order after the parameters
+		ArrayList<String> parameters = new ArrayList<String>();
+		ArrayList<String> options = new ArrayList<String>();
+		for(String arg: args)
+		{
+			(arg.startsWith("--") ? options : parameters).add(arg);
+		}
+		
+		if(parameters.size() == 8)
+		{
+			width = Integer.parseInt(parameters.get(0));
+			height = Integer.parseInt(parameters.get(1));
+			stepSize = Integer.parseInt(parameters.get(2));
+			aiCount = Integer.parseInt(parameters.get(3));
+			aiSize = Integer.parseInt(parameters.get(4));
+			viewRate = Integer.parseInt(parameters.get(5));
+			tolerance = Integer.parseInt(parameters.get(6));
+			mutationRate = Double.parseDouble(parameters.get(7));
+		}
+		else if(parameters.size() != 0)
+		{
+			System.out.println(USAGE);
+			return;
+		}
+		
+		//a resumed run takes its parameters and seed from its checkpoint file instead
+		String resumePath = null;
+		for(String option: options)
+		{
+			if(option.startsWith("--resume="))
+			{
+				resumePath = option.substring("--resume=".length());
+			}
+		}
+		if(resumePath != null)
+		{
+			//anything else would silently make the resumed run differ from the run it carries on
+			String conflict = parameters.size() != 0 ? "The parameters" : null;
+			for(String option: options)
+			{
+				for(String fixed: RESUME_CONFLICTS)
+				{
+					if(option.startsWith(fixed))
+					{
+						conflict = fixed.substring(0, fixed.length() - 1);
+					}
+				}
+			}
+			if(conflict != null)
+			{
+				System.out.printf("%s cannot be given with --resume, since the run carries on from its checkpoint.\n",
+						conflict);
+				return;
+			}
+		}
+		Checkpoint resumeFrom = resumePath != null ? Checkpoint.open(Paths.get(resumePath)) : null;
+		EvolutionEngine engine = resumeFrom != null ? resumeFrom.engine()
+				: new EvolutionEngine(width, height, stepSize, aiSize, aiCount, tolerance, mutationRate);
+		String checkpointPath = null;
+		String telemetryPath = null;
+		String profilePath = null;
+		int islands = 1;
+		int migrationInterval = viewRate;
+		String topology = "ring";
+		int workers = 0;
+		int listenPort = 0;
+		int scalingGenerations = 0;
+		for(String option: options)
+		{
+			if(option.startsWith("--seed="))
+			{
+				engine.SEED = Long.parseLong(option.substring("--seed=".length()));
+			}
+			else if(option.equals("--sequential"))
+			{
+				engine.PARALLEL_SIMULATE = false;
+			}
+			else if(option.startsWith("--kernel="))
+			{
+				engine.KERNEL = FitnessKernel.named(option.substring("--kernel=".length()));
+			}
+			else if(option.equals("--full-fitness"))
+			{
+				engine.INCREMENTAL_FITNESS = false;
+			}
+			else if(option.startsWith("--store="))
+			{
+				engine.STORE = option.substring("--store=".length());
+			}
+			else if(option.startsWith("--selection="))
+			{
+				engine.SELECTION = option.substring("--selection=".length());
+			}
+			else if(option.startsWith("--parents="))
+			{
+				engine.PARENTS = Integer.parseInt(option.substring("--parents=".length()));
+			}
+			else if(option.startsWith("--schedule="))
+			{
+				engine.SCHEDULE = option.substring("--schedule=".length());
+			}
+			else if(option.startsWith("--islands="))
+			{
+				islands = Integer.parseInt(option.substring("--islands=".length()));
+			}
+			else if(option.startsWith("--migration-interval="))
+			{
+				migrationInterval = Integer.parseInt(option.substring("--migration-interval=".length()));
+			}
+			else if(option.startsWith("--topology="))
+			{
+				topology = option.substring("--topology=".length());
+			}
+			else if(option.startsWith("--workers="))
+			{
+				workers = Integer.parseInt(option.substring("--workers=".length()));
+			}
+			else if(option.startsWith("--listen="))
+			{
+				listenPort = Integer.parseInt(option.substring("--listen=".length()));
+			}
+			else if(option.startsWith("--scaling="))
+			{
+				scalingGenerations = Integer.parseInt(option.substring("--scaling=".length()));
+			}
+			else if(option.startsWith("--checkpoint="))
+			{
+				checkpointPath = option.substring("--checkpoint=".length());
+			}
+			else if(option.startsWith("--checkpoint-interval="))
+			{
+				engine.CHECKPOINT_INTERVAL = Integer.parseInt(option.substring("--checkpoint-interval=".length()));
+			}
+			else if(option.startsWith("--resume="))
+			{
+				//already opened above
+			}
+			else if(option.startsWith("--telemetry="))
+			{
+				telemetryPath = option.substring("--telemetry=".length());
+			}
+			else if(option.startsWith("--profile="))
+			{
+				profilePath = option.substring("--profile=".length());
+			}
+			else
+			{
+				System.out.println(USAGE);
+				return;
+			}
+		}
+		if(engine.STORE.equals("gene-major") && !(engine.KERNEL instanceof ScalarFitnessKernel))
+		{
+			System.out.printf("The gene-major store scores a step of every AI at a time, which the %s fitness kernel "
+					+ "cannot do. It will only be used for the best AI.\n", engine.KERNEL.name());
+		}
+		try
+		{
+			engine.checkSettings();
+		}
+		catch(IllegalArgumentException ex)
+		{
+			System.out.println(ex.getMessage());
+			return;
+		}
+		System.out.printf("Seed %d\n", engine.SEED);
+		
+		if(scalingGenerations > 0)
+		{
+			IslandCoordinator.reportScaling(engine, Math.max(1, workers), scalingGenerations, migrationInterval, 
+					topology);
+			return;
+		}
+		if(workers != 0)
+		{
+			IslandCoordinator coordinator = new IslandCoordinator(engine, workers, migrationInterval, topology);
+			coordinator.LISTEN_PORT = listenPort;
+			coordinator.observer = new EvolutionObserver()
+			{
+				@Override
+				public void batchFinished(int generation, AIEv bestAI)
+				{
+					System.out.printf("Generation %d: best score %.1f on worker %d of %d\n", generation, bestAI.score, 
+							coordinator.bestIsland, coordinator.workerCount);
+				}
+			};
+			
+			long start = System.nanoTime();
+			coordinator.run(0);
+			System.out.printf("Finished at Generation %d on worker %d! (%d ms)\n", coordinator.generation, 
+					coordinator.bestIsland, (System.nanoTime() - start) / 1_000_000);
+			return;
+		}
+		if(islands != 1)
+		{
+			IslandModel model = new IslandModel(engine, islands, migrationInterval, topology);
+			model.observer = new EvolutionObserver()
+			{
+				@Override
+				public void batchFinished(int generation, AIEv bestAI)
+				{
+					System.out.printf("Generation %d: best score %.1f on island %d of %d\n", generation, bestAI.score, 
+							model.bestIsland, model.islands.length);
+				}
+			};
+			
+			long start = System.nanoTime();
+			model.run();
+			System.out.printf("Finished at Generation %d on island %d! (%d ms)\n", model.generation(), model.bestIsland, 
+					(System.nanoTime() - start) / 1_000_000);
+			return;
+		}
+		
+		engine.observer = new EvolutionObserver()
+		{
+			@Override
+			public void batchFinished(int generation, AIEv bestAI)
+			{
+				//every AI but the parents of each generation is built from scratch unless it is a clone
+				long built = (long) generation * (engine.AI_COUNT - engine.PARENTS);
+				long clones = engine.CLONES_SKIPPED.sum();
+				System.out.printf("Generation %d: best score %.1f, %d of %d AI skipped as clones (%.1f%%)\n", generation, 
+						engine.score(bestAI), clones, built, built == 0 ? 0.0 : 100.0 * clones / built);
+			}
+		};
+		
+		//the checkpoint file is created once every option is known, since it holds the seed
+		AIEv bestAI;
+		if(resumeFrom != null)
+		{
+			try
+			{
+				bestAI = engine.resume(resumeFrom);
+			}
+			catch(IllegalArgumentException ex)
+			{
+				System.out.println(ex.getMessage());
+				resumeFrom.close();
+				return;
+			}
+			engine.CHECKPOINT = resumeFrom;
+			System.out.printf("Resuming at Generation %d\n", resumeFrom.generation());
+		}
+		else
+		{
+			bestAI = engine.start();
+			if(checkpointPath != null)
+			{
+				engine.CHECKPOINT = Checkpoint.create(Paths.get(checkpointPath), engine);
+			}
+		}
+		if(telemetryPath != null)
+		{
+			engine.TELEMETRY = new TelemetryLog(Paths.get(telemetryPath), 4096);
+		}
+		//the run can be watched from any JMX client, such as JConsole or VisualVM
+		try
+		{
+			EvolutionMetrics.register(engine, "EvolutionEngine");
+		}
+		catch(JMException ex)
+		{
+			System.out.printf("The run could not be registered over JMX: %s\n", ex.getMessage());
+		}
+		PhaseProfile profile = profilePath != null ? new PhaseProfile(Paths.get(profilePath)) : null;
+		
+		long start = System.nanoTime();
+		engine.run(bestAI, viewRate);
+		System.out.printf("Finished at Generation %d! (%d ms)\n", engine.GEN_COUNTER,
+				(System.nanoTime() - start) / 1_000_000);
+		if(engine.METRICS != null)
+		{
+			engine.METRICS.unregister();
+		}
+		if(profile != null)
+		{
+			profile.close();
+			PhaseProfile.printHistograms(profile.file, System.out);
+		}
+		if(engine.CHECKPOINT != null)
+		{
+			engine.CHECKPOINT.close();
+		}
+		if(engine.TELEMETRY != null)
+		{
+			engine.TELEMETRY.close();
+			if(engine.TELEMETRY.dropped > 0)
+			{
+				System.out.printf("%d telemetry records were dropped because the writer fell behind.\n", 
+						engine.TELEMETRY.dropped);
+			}
+		}
+	}
+	
+	/**
+	 * A constructor for headless runs that works out the usable width and the number of steps the same way
+	 * {@link AI_Evolution} does, except that there is no frame border to leave room for.
+	 * @param width The width the AI are scored against.
+	 * @param height The height the AI descend.
+	 * @param step_size How far the AI travel per step in pixels.
+	 * @param ai_size The size of the AI (represented as squares).
+	 * @param ai_count The number of AI per generation.
+	 * @param tolerance The horizontal distance the AI can travel each step. Reduced to the usable width if it is larger.
+	 * @param mutation_rate The rate at which mutation can occur.
+	 * @throws InputMismatchException Thrown if any of the given values are less than or equal to zero, or if there is
+	 * not enough usable space to run the simulation.
+	 */
+	public EvolutionEngine(int width, int height, int step_size, int ai_size, int ai_count, int tolerance,
+			double mutation_rate) throws InputMismatchException
+	{
+		this(width, width - ai_size, height / Math.max(1, Math.max(step_size, ai_size)), ai_count,
+				Math.min(tolerance, width - ai_size), mutation_rate);
+		if(height <= 0)
+		{
+			throw new InputMismatchException("Height must be greater than 0.");
+		}
+		if(step_size <= 0)
+		{
+			throw new InputMismatchException("The step size must be greater than 0.");
+		}
+		if(ai_size <= 0)
+		{
+			throw new InputMismatchException("The AI size must be greater than 0.");
+		}
+	}
+	
+	/**
+	 * A constructor that takes the already worked out usable width and number of steps, as {@link AI_Evolution} does
+	 * once its frame is set up.
+	 * @param width The width the AI are scored against.
+	 * @param usable_width The largest x-value a step can have.
+	 * @param steps The number of steps the AI will have to take on their descent.
+	 * @param ai_count The number of AI per generation.
+	 * @param tolerance The horizontal distance the AI can travel each step.
+	 * @param mutation_rate The rate at which mutation can occur.
+	 * @throws InputMismatchException Thrown if {@code width}, {@code ai_count}, {@code tolerance} or
+	 * {@code mutation_rate} are less than or equal to zero, or if {@code usable_width} or {@code steps} are less than
+	 * zero.
+	 */
+	public EvolutionEngine(int width, int usable_width, int steps, int ai_count, int tolerance, double mutation_rate)
+			throws InputMismatchException
+	{
+		WIDTH = width;
+		USABLE_WIDTH = usable_width;
+		STEPS = steps;
+		AI_COUNT = ai_count;
+		TOLERANCE = tolerance;
+		MUTATION_RATE = mutation_rate;
+		
+		if(WIDTH <= 0)
+		{
+			throw new InputMismatchException("Width must be greater than 0.");
+		}
+		if(USABLE_WIDTH < 0)
+		{
+			throw new InputMismatchException("There is not enough usable width for the given AI size.");
+		}
+		if(STEPS < 0)
+		{
+			throw new InputMismatchException("The number of steps must not be less than 0.");
+		}
+		if(AI_COUNT <= 0)
+		{
+			throw new InputMismatchException("The AI count (number of AI) must be greater than 0.");
+		}
+		if(TOLERANCE <= 0)
+		{
+			throw new InputMismatchException("The tolerance must be greater than 0.");
+		}
+		if(MUTATION_RATE <= 0)
+		{
+			throw new InputMismatchException("The mutation rate must be greater than 0.");
+		}
+	}
+	
+	/**
+	 * This method starts a simulation and runs until the simulation has produced a perfect AI (the AI that follows the
+	 * given criteria the best). {@link #observer} is told about the starting AI and the best AI of every batch.
+	 * @param viewRate The number of generations in each batch.
+	 * @return the perfect AI that was found.
+	 */
+	public AIEv run(int viewRate)
+	{
+		//the current best AI. "best" meaning the closest to making a straight line down the middle.
+		return run(start(), viewRate);
+	}
+	
+	/**
+	 * Carries on a simulation from the generation {@link #GEN_COUNTER} is at until it has produced a perfect AI, writing 
+	 * the state of the run to {@link #CHECKPOINT} along the way if there is one.
+	 * @param bestAI The best AI found thus far, which is the ancestor for all future AI.
+	 * @param viewRate The number of generations in each batch.
+	 * @return the perfect AI that was found.
+	 */
+	public AIEv run(AIEv bestAI, int viewRate)
+	{
+		//show the current best AI, which is the ancestor for all future AI
+		observer.batchFinished(GEN_COUNTER, bestAI);
+		int lastCheckpoint = GEN_COUNTER;
+		
+		//use a while loop instead of a do-while just in case the current best AI is already perfect
+		while(!isPerfect(bestAI))
+		{
+			bestAI = simulate(bestAI, viewRate, TOLERANCE);
+			observer.batchFinished(GEN_COUNTER, bestAI);
+			if(CHECKPOINT != null && GEN_COUNTER - lastCheckpoint >= CHECKPOINT_INTERVAL)
+			{
+				CHECKPOINT.write(GEN_COUNTER, CLONES_SKIPPED.sum(), parents(bestAI), schedule);
+				lastCheckpoint = GEN_COUNTER;
+			}
+		}
+		return bestAI;
+	}
+	
+	/**
+	 * @param bestAI The best AI returned by the last batch. It must already be scored.
+	 * @return a copy of every parent the next batch is built from, best first. The other parents of the last batch are 
+	 * only still in {@link #arena} if {@code bestAI} is the best of them; otherwise the next batch is built from 
+	 * {@code bestAI} alone.
+	 */
+	AIEv[] parents(AIEv bestAI)
+	{
+		AIEv[] parents = new AIEv[PARENTS];
+		boolean kept = arena != null && arena.parents.length == PARENTS && arena.isParent(bestAI);
+		for(int j = 0; j < PARENTS; j++)
+		{
+			parents[j] = kept ? arena.copy(arena.parents[j]) : bestAI;
+		}
+		return parents;
+	}
+	
+	/**
+	 * Sets this engine back to the latest checkpoint of a run, so that {@link #run(AIEv, int)} carries on from there.
+	 * This engine must have the parameters and seed of that run (see {@link Checkpoint#engine()}). Every parent of the
+	 * checkpoint is put back into {@link #arena} and {@link #schedule} is set back to its state as of the checkpoint, so
+	 * the next generation is built exactly as it would have been.
+	 * @param checkpoint The checkpoint file of the run.
+	 * @return the best AI of the latest checkpoint.
+	 * @throws IllegalArgumentException Thrown if this engine does not pick its parents or adapt its mutations the same
+	 * way as the run (see {@link Checkpoint#check(EvolutionEngine)}).
+	 */
+	public AIEv resume(Checkpoint checkpoint) throws IllegalArgumentException
+	{
+		checkpoint.check(this);
+		GEN_COUNTER = checkpoint.generation();
+		schedule = MutationSchedule.named(SCHEDULE);
+		checkpoint.restore(schedule);
+		CLONES_SKIPPED.reset();
+		CLONES_SKIPPED.add(checkpoint.clonesSkipped());
+		AIEv[] parents = checkpoint.parents();
+		allocateArena();
+		arena.setParents(parents, WIDTH / 2);
+		return parents[0];
+	}
+	
+	/**
+	 * Resets this engine for a new simulation and creates the AI every later AI descends from.
+	 * @return a random AI, built from the stream of the parent's slot in generation 0.
+	 */
+	public AIEv start()
+	{
+		//reset COUNT for a new simulation
+		GEN_COUNTER = 0;
+		CLONES_SKIPPED.reset();
+		MUTATIONS.reset();
+		schedule = MutationSchedule.named(SCHEDULE);
+		return new AIEv(STEPS, USABLE_WIDTH, EvolutionRandom.forThread().reseed(SEED, 0, AI_COUNT - 1));
+	}
+	
+	/**
+	 * Runs {@code count} simulations based on {@code bestAI}. Generations are run one after another in a loop, so the
+	 * stack does not grow with {@code count}, and are built in the two stores of {@link #arena}, so once the arena 
+	 * exists no generation allocates anything on a sequential run. A batch carries on from every parent picked by the 
+	 * batch before it, as long as {@code bestAI} is the best AI that batch returned.
+	 * @param bestAI The best AI found thus far. This will be used as a basis for the future generations.
+	 * @param count How many generations should pass before returning the best AI found. Fewer pass if a perfect AI is 
+	 * found first and {@link #STOP_WHEN_PERFECT} is true.
+	 * @param tolerance How far the AI can step horizontally, before it is scaled by {@link #schedule}.
+	 * @return the best AI found within {@code count} simulations.
+	 */
+	public AIEv simulate(AIEv bestAI, int count, int tolerance)
+	{
+		if(count == 0)
+		{
+			return bestAI;
+		}
+		
+		allocateArena();
+		
+		//make sure the parent is scored before any AI are built from it, so that they can inherit its score
+		score(bestAI);
+		if(!arena.isParent(bestAI))
+		{
+			arena.setParent(bestAI, WIDTH / 2);
+		}
+		if(schedule == null || !schedule.name().equals(SCHEDULE))
+		{
+			schedule = MutationSchedule.named(SCHEDULE);
+		}
+		int indexOfBest = arena.parents[0];
+		//a parallel run splits the population into chunks of at least PARALLEL_CHUNK_SIZE AI, while a sequential run 
+		//	handles the whole population as a single chunk
+		int chunk = PARALLEL_SIMULATE 
+				? Math.max(PARALLEL_CHUNK_SIZE, AI_COUNT / (ForkJoinPool.getCommonPoolParallelism() * 4)) : AI_COUNT;
+		
+		//count counts down from VIEW_RATE so that an update on the best AI will be given at regular intervals. Therefore,
+		//	when count reaches zero, return the best AI found thus far.
+		for(; count > 0; count--)
+		{
+			//increase the label for this generation
+			GEN_COUNTER++;
+			long start = System.nanoTime();
+			long mutations = MUTATIONS.sum();
+			long clones = CLONES_SKIPPED.sum();
+			PhaseEvents.Generation event = new PhaseEvents.Generation();
+			event.begin();
+			//the schedule may have changed the rate and tolerance after the generation before this one
+			double logOfNoMutation = AIEv.logOfNoMutation(MUTATION_RATE * schedule.rateScale());
+			int scaledTolerance = Math.max(1, (int) Math.round(tolerance * schedule.toleranceScale()));
+			
+			//builds and scores every AI, then determines the best. The chunks of a parallel run are spread across the 
+			//	common ForkJoinPool, while a population of a single chunk is handled as a single range on this thread.
+			if(chunk < AI_COUNT)
+			{
+				indexOfBest = ForkJoinPool.commonPool().invoke(new GenerationTask(0, AI_COUNT, chunk, GEN_COUNTER, 
+						scaledTolerance, logOfNoMutation));
+			}
+			else
+			{
+				indexOfBest = buildRange(0, AI_COUNT, GEN_COUNTER, scaledTolerance, logOfNoMutation);
+			}
+			
+			//the generation just built becomes the current one, and its best and the other parents picked from it the
+			//	basis for the next one
+			PhaseEvents.ParentSelection selection = new PhaseEvents.ParentSelection();
+			selection.begin();
+			arena.selectParents(indexOfBest, SEED, GEN_COUNTER, chunk);
+			selection.end();
+			//a single parent is the best AI, which every range already found
+			if(PARENTS > 1 && selection.shouldCommit())
+			{
+				selection.generation = GEN_COUNTER;
+				selection.aiCount = AI_COUNT;
+				selection.parents = PARENTS;
+				selection.strategy = SELECTION;
+				selection.commit();
+			}
+			arena.swap();
+			schedule.generationFinished(GEN_COUNTER, arena.score(indexOfBest));
+			if(TELEMETRY != null)
+			{
+				record(indexOfBest, System.nanoTime() - start, MUTATIONS.sum() - mutations, 
+						(int) (CLONES_SKIPPED.sum() - clones));
+			}
+			if(METRICS != null)
+			{
+				METRICS.generationFinished(GEN_COUNTER, arena.score(indexOfBest));
+			}
+			event.end();
+			if(event.shouldCommit())
+			{
+				event.generation = GEN_COUNTER;
+				event.aiCount = AI_COUNT;
+				event.steps = STEPS;
+				event.mutations = MUTATIONS.sum() - mutations;
+				event.clones = (int) (CLONES_SKIPPED.sum() - clones);
+				event.commit();
+			}
+			observer.generationFinished(GEN_COUNTER, arena, indexOfBest);
+			if(STOP_WHEN_PERFECT && arena.isPerfect(indexOfBest))
+			{
+				break;
+			}
+		}
+		
+		//the best AI is copied out, since its row will be written over by the next batch
+		return arena.copy(indexOfBest);
+	}
+	
+	/**
+	 * Checks the settings that are otherwise only looked at once the first generation is built, so that a run with any
+	 * of them out of range can fail before it starts.
+	 * @throws IllegalArgumentException Thrown if there is no selection strategy named {@link #SELECTION} or mutation
+	 * schedule named {@link #SCHEDULE}, if {@link #PARENTS} is not at least 1 and less than the AI count, or if there
+	 * are several parents and an AI could score more than a selection strategy can order (see 
+	 * {@link SelectionStrategy#MAX_DOUBLED_SCORE}).
+	 */
+	void checkSettings() throws IllegalArgumentException
+	{
+		if(PARENTS < 1 || PARENTS >= AI_COUNT)
+		{
+			throw new IllegalArgumentException("The number of parents must be at least 1 and less than the AI count.");
+		}
+		//a single parent is the best AI, which is found without ever packing a score into a key
+		if(PARENTS > 1 && maxDoubledScore() > SelectionStrategy.MAX_DOUBLED_SCORE)
+		{
+			throw new IllegalArgumentException("An AI of " + STEPS + " steps at a width of " + WIDTH 
+					+ " can score more than the parents can be picked by, so it can only be run with a single parent.");
+		}
+		//only the names are checked, so the strategy is created for a generation of a single AI
+		SelectionStrategy.named(SELECTION, 1);
+		MutationSchedule.named(SCHEDULE);
+	}
+	
+	/**
+	 * @return twice the worst score an AI can have, which is every step as far from the center as it can be.
+	 */
+	long maxDoubledScore()
+	{
+		//a step can land anywhere from 0 to the usable width, which may reach past either side of the center
+		return (long) STEPS * Math.max(WIDTH, Math.abs(WIDTH - 2L * USABLE_WIDTH));
+	}
+	
+	/**
+	 * Allocates {@link #arena}, unless it was already allocated for the same size of a generation, kind of store and 
+	 * selection.
+	 */
+	void allocateArena()
+	{
+		if(arena == null || arena.aiCount != AI_COUNT || arena.steps != STEPS || !arena.store.equals(STORE)
+				|| arena.parents.length != PARENTS || !arena.strategy.name().equals(SELECTION))
+		{
+			arena = new PopulationArena(AI_COUNT, STEPS, STORE, PARENTS, SELECTION);
+		}
+	}
+	
+	/**
+	 * Works out the mean and worst score of the generation just built, and puts them into {@link #TELEMETRY} along with 
+	 * everything else about it.
+	 * @param indexOfBest The index of the best AI of the generation.
+	 * @param elapsed The time the generation took in nanoseconds.
+	 * @param mutations The number of steps mutated in the generation.
+	 * @param clones The number of AI of the generation skipped as clones.
+	 */
+	void record(int indexOfBest, long elapsed, long mutations, int clones)
+	{
+		double sum = 0;
+		double worst = 0;
+		for(int a = 0; a < AI_COUNT; a++)
+		{
+			double score = arena.score(a);
+			sum += score;
+			worst = Math.max(worst, score);
+		}
+		//the parents are copied rather than built, so they are left out of the AI built
+		double built = AI_COUNT - PARENTS - clones;
+		TELEMETRY.record(GEN_COUNTER, arena.score(indexOfBest), sum / AI_COUNT, worst, mutations, clones, elapsed, 
+				built * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+	}
+	
+	/**
+	 * Builds and scores a contiguous range of the next generation in {@link #arena}, then finds the best AI within that
+	 * range.
+	 * @param from The first index (inclusive) to build and score.
+	 * @param to The last index (exclusive) to build and score.
+	 * @param generation The generation being built, which seeds the random numbers each AI is built from.
+	 * @param tolerance How far the AI can step horizontally.
+	 * @param logOfNoMutation The logarithm of the chance of a step not mutating.
+	 * @return the index of the best AI in the range. On a tie, the lowest index wins.
+	 */
+	int buildRange(int from, int to, int generation, int tolerance, double logOfNoMutation)
+	{
+		double center = WIDTH / 2.0;
+		//the rows from here on hold copies of the parents
+		int kept = arena.firstKept();
+		//this worker's generator, which is reseeded for every AI so that each AI gets the same stream no matter which 
+		//	worker builds it
+		EvolutionRandom random = EvolutionRandom.forThread();
+		//the number of AI in this range that turned out to be identical to their parent
+		int clones = 0;
+		//the number of steps in this range that were mutated to a new x-value
+		long mutations = 0;
+		PhaseEvents.Offspring offspring = new PhaseEvents.Offspring();
+		offspring.begin();
+		
+		for(int a = from; a < to; a++)
+		{
+			//every AI but the parents is a new AI based on one of the parents
+			if(a >= kept)
+			{
+				arena.keepParent(a - kept);
+			}
+			else
+			{
+				int changed = arena.buildChild(a, center, USABLE_WIDTH, tolerance, logOfNoMutation, 
+						random.reseed(SEED, generation, a));
+				mutations += changed;
+				//an AI identical to its parent is never copied or scored
+				if(changed == 0)
+				{
+					clones++;
+				}
+			}
+		}
+		
+		offspring.end();
+		if(offspring.shouldCommit())
+		{
+			offspring.generation = generation;
+			offspring.aiCount = to - from;
+			offspring.steps = STEPS;
+			offspring.mutations = mutations;
+			offspring.clones = clones;
+			offspring.incremental = INCREMENTAL_FITNESS;
+			offspring.commit();
+		}
+		
+		//without incremental fitness, every AI is scored from scratch by the kernel in a single batch, except for the 
+		//	clones and the parents, whose rows are either not written or already scored
+		if(!INCREMENTAL_FITNESS)
+		{
+			PhaseEvents.Scoring scoring = new PhaseEvents.Scoring();
+			scoring.begin();
+			arena.next.scoreAll(KERNEL, from, to, WIDTH);
+			for(int a = from; a < to; a++)
+			{
+				if(a >= kept)
+				{
+					arena.next.setScore(a, arena.parentScore(a - kept));
+				}
+				else if(arena.next.isClone(a))
+				{
+					arena.next.setScore(a, arena.parentScore(arena.parentOf(a)));
+				}
+			}
+			scoring.end();
+			if(scoring.shouldCommit())
+			{
+				scoring.generation = generation;
+				scoring.aiCount = to - from;
+				scoring.steps = STEPS;
+				scoring.kernel = KERNEL.name();
+				scoring.commit();
+			}
+		}
+		
+		CLONES_SKIPPED.add(clones);
+		MUTATIONS.add(mutations);
+		if(METRICS != null)
+		{
+			//the parents are copied rather than built, so they are left out of the AI evaluated
+			METRICS.evaluations.add(to - from - clones - Math.max(0, to - Math.max(from, kept)));
+		}
+		
+		PhaseEvents.Selection selection = new PhaseEvents.Selection();
+		selection.begin();
+		int indexOfBest = selectBest(arena.next, from, to);
+		selection.end();
+		if(selection.shouldCommit())
+		{
+			selection.generation = generation;
+			selection.aiCount = to - from;
+			selection.commit();
+		}
+		return indexOfBest;
+	}
+	
+	/**
+	 * Finds the best AI within a contiguous range of a generation.
+	 * @param scores The store holding the score of every AI of the generation.
+	 * @param from The first index (inclusive) to look at.
+	 * @param to The last index (exclusive) to look at.
+	 * @return the index of the best AI in the range. On a tie, the lowest index wins.
+	 */
+	static int selectBest(PopulationStore scores, int from, int to)
+	{
+		//arbitrarily say the first AI is the worst, but will immediately check that assumption
+		int indexOfBest = from;
+		double scoreOfBest = Double.MAX_VALUE; //lowest possible score (explained below)
+		for(int a = from; a < to; a++)
+		{
+			double score = scores.score(a);
+			//determines if this AI is better than the best or not according to the fitness function, and redefines
+			//	which is the best if necessary.
+			if(scoreOfBest > score)
+			{
+				indexOfBest = a;
+				scoreOfBest = score;
+			}
+		}
+		return indexOfBest;
+	}
+	
+	/**
+	 * The fitness function. Lower scores are better, and is determined by closeness to the center on average. The score 
+	 * is only worked out once, and is kept in {@link AIEv#score} from then on.
+	 * @param ai The AI to be scored.
+	 * @return a double which is the sum of the horizontal distances between each step of {@code ai} and the center.
+	 */
+	public double score(AIEv ai)
+	{
+		if(!ai.scored)
+		{
+			//an AI built from a scored parent only needs the steps it mutated to be looked at, since every other step 
+			//	adds the same amount to its score as it did to its parent's. Every distance is a multiple of 0.5, so this 
+			//	gives exactly the same score as adding up every step.
+			if(INCREMENTAL_FITNESS && ai.inheritsScore)
+			{
+				double center = WIDTH / 2.0;
+				double score = ai.score;
+				for(int m = 0; m < ai.mutationCount; m++)
+				{
+					score += Math.abs(center - ai.steps[ai.mutations[m]]) - Math.abs(center - ai.replaced[m]);
+				}
+				ai.score = score;
+			}
+			else
+			{
+				ai.score = fullScore(ai);
+			}
+			ai.scored = true;
+			
+			//the mutations are no longer needed once the score is known
+			ai.mutations = null;
+			ai.replaced = null;
+		}
+		return ai.score;
+	}
+	
+	/**
+	 * The fitness function worked out from scratch, by looking at every step of {@code ai}. 
+	 * @param ai The AI to be scored.
+	 * @return a double which is the sum of the horizontal distances between each step of {@code ai} and the center.
+	 */
+	public double fullScore(AIEv ai)
+	{
+		return fullScore(ai.steps, 0);
+	}
+	
+	/**
+	 * The fitness function worked out from scratch for steps held in a larger array, such as a slab of a 
+	 * {@link HeapPopulationStore}.
+	 * @param steps The array holding the steps to be scored.
+	 * @param offset The index of the first step within {@code steps}.
+	 * @return a double which is the sum of the horizontal distances between each of the {@link #STEPS} steps starting
+	 * at {@code offset} and the center.
+	 */
+	public double fullScore(int[] steps, int offset)
+	{
+		//the kernel adds up |WIDTH - 2x| in integer arithmetic, which is exactly twice the sum of |WIDTH / 2.0 - x|
+		return KERNEL.doubledScore(steps, offset, STEPS, WIDTH) / 2.0;
+	}
+	
+	/**
+	 * A method that checks if an AI is "perfect" determined by if every step falls in the center (integer division).
+	 * @param ai The AI to be checked.
+	 * @return a boolean. <b>{@code true}</b> if every step of the AI lands in the center of the canvas. Otherwise,
+	 * <b>{@code false}</b>.
+	 */
+	public boolean isPerfect(AIEv ai)
+	{
+		//an AI copied out of the arena already knows how many of its steps are off center
+		if(ai.offCenter >= 0)
+		{
+			return ai.offCenter == 0;
+		}
+		return KERNEL.isPerfect(ai.steps, 0, ai.steps.length, WIDTH / 2);
+	}
+	
+	/**
+	 * Builds and scores a contiguous range of the next generation in parallel, then finds the best AI within that range.
+	 * Ranges larger than the chunk size are split in half and handled as two forked tasks, and the two halves are 
+	 * reduced to a single index using the same rule as a sequential pass: the lowest score wins, and on a tie the lower 
+	 * index wins.
+	 */
+	private class GenerationTask extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		/** The first index (inclusive) of the range handled by this task. */
+		final int from;
+		/** The last index (exclusive) of the range handled by this task. */
+		final int to;
+		/** The largest range that will be handled without being split any further. */
+		final int chunk;
+		/** The generation being built, which seeds the random numbers each AI is built from. */
+		final int generation;
+		/** How far the AI can step horizontally. */
+		final int tolerance;
+		/** The logarithm of the chance of a step not mutating. */
+		final double logOfNoMutation;
+		
+		/**
+		 * Creates a task for the AI from index {@code from} up to (but not including) index {@code to}.
+		 * @param from The first index (inclusive) to build and score.
+		 * @param to The last index (exclusive) to build and score.
+		 * @param chunk The largest range that will be handled without being split any further.
+		 * @param generation The generation being built.
+		 * @param tolerance How far the AI can step horizontally.
+		 * @param logOfNoMutation The logarithm of the chance of a step not mutating.
+		 */
+		GenerationTask(int from, int to, int chunk, int generation, int tolerance, double logOfNoMutation)
+		{
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+			this.generation = generation;
+			this.tolerance = tolerance;
+			this.logOfNoMutation = logOfNoMutation;
+		}
+		
+		@Override
+		protected Integer compute()
+		{
+			if(to - from <= chunk)
+			{
+				return buildRange(from, to, generation, tolerance, logOfNoMutation);
+			}
+			
+			//split ranges that are too large in half, running the left half in another task
+			int middle = (from + to) >>> 1;
+			GenerationTask left = new GenerationTask(from, middle, chunk, generation, tolerance, logOfNoMutation);
+			left.fork();
+			int rightBest = new GenerationTask(middle, to, chunk, generation, tolerance, logOfNoMutation).compute();
+			int leftBest = left.join();
+			
+			//the left half holds the lower indices, so it wins ties just like it would in a sequential pass
+			PopulationStore scores = arena.next;
+			return scores.score(leftBest) <= scores.score(rightBest) ? leftBest : rightBest;
+		}
+	}
+}
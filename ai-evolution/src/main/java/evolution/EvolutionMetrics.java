@@ -0,0 +1,239 @@
+package evolution;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes the progress of an {@link EvolutionEngine} over JMX (see {@link EvolutionMetricsMBean}). The engine only ever
+ * adds to {@link LongAdder} counters, which every worker of a parallel generation adds to without contending with the
+ * others, and writes the generation and best score once per generation. Everything else, including the rates and the
+ * allocation, is worked out when a JMX client reads the attributes, so watching a run costs the run nothing.
+ */
+public class EvolutionMetrics implements EvolutionMetricsMBean
+{
+	/** The domain of the name every engine is registered under. */
+	static final String DOMAIN = "evolution";
+	/** 
+	 * The least time between two samples of the rates. Reads closer together than this get the rates of the last sample,
+	 * so that several clients polling at once do not shrink each other's sample to nothing.
+	 */
+	static final long MIN_SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+	
+	/** The engine whose progress is exposed. */
+	final EvolutionEngine engine;
+	/** The name this is registered under, or null if it is not registered. */
+	ObjectName name;
+	/** 
+	 * The generation the engine is at, as of the last generation it finished. Kept here rather than read from
+	 * {@link EvolutionEngine#GEN_COUNTER}, which is only ever safe to read on the thread running the engine.
+	 */
+	volatile int generation;
+	/** Keeps track of the number of generations simulated since this was created. */
+	final LongAdder generations = new LongAdder();
+	/** Keeps track of the number of AI built and scored since this was created. */
+	final LongAdder evaluations = new LongAdder();
+	/** The score of the best AI found thus far. */
+	volatile double bestScore = Double.NaN;
+	/** The time, according to {@link System#nanoTime()}, at which {@link #bestScore} last got better. */
+	volatile long lastImprovement = System.nanoTime();
+	/** Measures the bytes allocated by each thread, or null if the JVM can not. */
+	final com.sun.management.ThreadMXBean threads;
+	
+	/** The time, according to {@link System#nanoTime()}, of the last sample. */
+	long sampleTime = System.nanoTime();
+	/** The number of generations at the last sample. */
+	long sampleGenerations = 0;
+	/** The number of evaluations at the last sample. */
+	long sampleEvaluations = 0;
+	/** The number of bytes allocated by every live thread at the last sample. */
+	long sampleAllocated;
+	/** The rates worked out at the last sample. */
+	double generationsPerSecond, evaluationsPerSecond, allocatedPerGeneration = -1;
+	
+	/**
+	 * @param engine The engine whose progress is exposed. Its {@link EvolutionEngine#METRICS} is not set by this.
+	 */
+	EvolutionMetrics(EvolutionEngine engine)
+	{
+		this.engine = engine;
+		com.sun.management.ThreadMXBean threads = null;
+		if(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean 
+				&& bean.isThreadAllocatedMemorySupported())
+		{
+			bean.setThreadAllocatedMemoryEnabled(true);
+			threads = bean;
+		}
+		this.threads = threads;
+		sampleAllocated = allocated();
+		//a resumed engine starts at the generation of its checkpoint
+		generation = engine.GEN_COUNTER;
+	}
+	
+	/**
+	 * Creates the metrics of an engine, registers them with the platform MBean server under
+	 * "evolution:type=EvolutionEngine,name={@code name}" and sets them as the engine's {@link EvolutionEngine#METRICS}.
+	 * Metrics already registered under that name, such as those of an earlier run, are replaced.
+	 * @param engine The engine whose progress is exposed.
+	 * @param name The name of the run, which tells it apart from other runs in the same JVM.
+	 * @return the registered metrics.
+	 * @throws JMException Thrown if the metrics could not be registered.
+	 */
+	static EvolutionMetrics register(EvolutionEngine engine, String name) throws JMException
+	{
+		EvolutionMetrics metrics = new EvolutionMetrics(engine);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName(DOMAIN + ":type=EvolutionEngine,name=" + ObjectName.quote(name));
+		if(server.isRegistered(objectName))
+		{
+			server.unregisterMBean(objectName);
+		}
+		server.registerMBean(metrics, objectName);
+		metrics.name = objectName;
+		engine.METRICS = metrics;
+		return metrics;
+	}
+	
+	/**
+	 * Removes these metrics from the platform MBean server and from the engine, if they are still registered.
+	 */
+	void unregister()
+	{
+		if(engine.METRICS == this)
+		{
+			engine.METRICS = null;
+		}
+		if(name == null)
+		{
+			return;
+		}
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if(server.isRegistered(name))
+			{
+				server.unregisterMBean(name);
+			}
+		}
+		catch(JMException ex)
+		{
+			//a later run registering under the same name has replaced these metrics already
+		}
+		name = null;
+	}
+	
+	/**
+	 * Called by the engine once every generation, after the best AI of it has been found.
+	 * @param generation The number of generations the engine has simulated, including this one.
+	 * @param bestScore The score of the best AI of the generation.
+	 */
+	void generationFinished(int generation, double bestScore)
+	{
+		this.generation = generation;
+		generations.increment();
+		//NaN compares false, so the first generation is always an improvement
+		if(!(bestScore >= this.bestScore))
+		{
+			this.bestScore = bestScore;
+			lastImprovement = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Works out the rates from the counters, unless the last sample is too recent.
+	 */
+	synchronized void sample()
+	{
+		long now = System.nanoTime();
+		long elapsed = now - sampleTime;
+		if(elapsed < MIN_SAMPLE_NANOS)
+		{
+			return;
+		}
+		
+		long generations = this.generations.sum();
+		long evaluations = this.evaluations.sum();
+		long allocated = allocated();
+		double seconds = (double) elapsed / TimeUnit.SECONDS.toNanos(1);
+		generationsPerSecond = (generations - sampleGenerations) / seconds;
+		evaluationsPerSecond = (evaluations - sampleEvaluations) / seconds;
+		//threads that died since the last sample take their allocation with them, so the difference can come out 
+		//	negative, which is shown as nothing allocated
+		if(threads != null && generations > sampleGenerations)
+		{
+			allocatedPerGeneration = Math.max(0, allocated - sampleAllocated) / (double) (generations - sampleGenerations);
+		}
+		
+		sampleTime = now;
+		sampleGenerations = generations;
+		sampleEvaluations = evaluations;
+		sampleAllocated = allocated;
+	}
+	
+	/**
+	 * @return the number of bytes allocated so far by every live thread, or 0 if the JVM can not measure allocation.
+	 */
+	long allocated()
+	{
+		if(threads == null)
+		{
+			return 0;
+		}
+		
+		long total = 0;
+		for(long bytes: threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+		{
+			//threads that died between listing and measuring them come back as -1
+			total += Math.max(0, bytes);
+		}
+		return total;
+	}
+	
+	@Override
+	public int getGeneration()
+	{
+		return generation;
+	}
+	
+	@Override
+	public synchronized double getGenerationsPerSecond()
+	{
+		sample();
+		return generationsPerSecond;
+	}
+	
+	@Override
+	public long getEvaluations()
+	{
+		return evaluations.sum();
+	}
+	
+	@Override
+	public synchronized double getEvaluationsPerSecond()
+	{
+		sample();
+		return evaluationsPerSecond;
+	}
+	
+	@Override
+	public double getBestScore()
+	{
+		return bestScore;
+	}
+	
+	@Override
+	public double getSecondsSinceImprovement()
+	{
+		return (double) (System.nanoTime() - lastImprovement) / TimeUnit.SECONDS.toNanos(1);
+	}
+	
+	@Override
+	public synchronized double getAllocatedBytesPerGeneration()
+	{
+		sample();
+		return allocatedPerGeneration;
+	}
+}
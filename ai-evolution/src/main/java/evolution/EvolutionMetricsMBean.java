@@ -0,0 +1,46 @@
+package evolution;
+
+/**
+ * The attributes {@link EvolutionMetrics} exposes over JMX, so that a running simulation can be watched from JConsole,
+ * VisualVM or any other JMX client. Rates are worked out over the time between two reads, at least
+ * {@link EvolutionMetrics#MIN_SAMPLE_NANOS} apart, so they follow the run as it slows down or speeds up.
+ */
+public interface EvolutionMetricsMBean
+{
+	/**
+	 * @return the number of generations that have been simulated so far.
+	 */
+	int getGeneration();
+	
+	/**
+	 * @return the number of generations simulated per second.
+	 */
+	double getGenerationsPerSecond();
+	
+	/**
+	 * @return the number of AI built and scored so far. Clones and the parent of each generation are never scored, so
+	 * they are left out.
+	 */
+	long getEvaluations();
+	
+	/**
+	 * @return the number of AI built and scored per second.
+	 */
+	double getEvaluationsPerSecond();
+	
+	/**
+	 * @return the score of the best AI found thus far, or {@link Double#NaN} before the first generation.
+	 */
+	double getBestScore();
+	
+	/**
+	 * @return the number of seconds since the best score last got better.
+	 */
+	double getSecondsSinceImprovement();
+	
+	/**
+	 * @return the number of bytes allocated by every thread of the JVM per generation simulated, or -1 until it has been
+	 * measured or if the JVM can not measure allocation.
+	 */
+	double getAllocatedBytesPerGeneration();
+}
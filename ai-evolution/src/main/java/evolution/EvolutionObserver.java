@@ -0,0 +1,30 @@
+package evolution;
+
+/**
+ * Receives progress updates from an {@link EvolutionEngine}. Every method does nothing by default, so an observer only
+ * has to override the updates it is interested in. {@link AI_Evolution} is the observer that draws a run to the screen,
+ * while headless runs can leave the engine without any observer at all.
+ */
+interface EvolutionObserver
+{
+	/**
+	 * Called once every generation, after every AI in it has been built and scored.
+	 * @param generation The number of generations that have been simulated so far, including this one.
+	 * @param population The arena holding every AI of this generation as its current generation. The last AI is the 
+	 * parent the others were based on. The arena is reused for later generations, so anything needed after this call 
+	 * returns has to be copied out of it.
+	 * @param indexOfBest The index of the best AI of this generation within {@code population}.
+	 */
+	default void generationFinished(int generation, PopulationArena population, int indexOfBest)
+	{
+	}
+	
+	/**
+	 * Called when a run starts, and again every time a batch of generations has been simulated.
+	 * @param generation The number of generations that have been simulated so far.
+	 * @param bestAI The best AI found thus far.
+	 */
+	default void batchFinished(int generation, AIEv bestAI)
+	{
+	}
+}
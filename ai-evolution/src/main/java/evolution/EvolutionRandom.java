@@ -0,0 +1,78 @@
+package evolution;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The random number generator used to build AI. It is the SplitMix64 generator that {@link java.util.SplittableRandom}
+ * is built on, but unlike SplittableRandom it can be reseeded in place, so a worker can reuse a single instance for every
+ * AI it builds without allocating anything.
+ * <p>
+ * Every AI is built from its own stream, seeded from the master seed of the run, the generation and the index of the AI
+ * within that generation (see {@link #reseed(long, long, long)}). Which AI a stream belongs to never depends on which
+ * thread builds it or in what order, so a run with a given master seed is reproducible no matter how many threads it
+ * is split across.
+ * </p>
+ */
+class EvolutionRandom implements RandomGenerator
+{
+	/** The odd constant SplitMix64 advances its state by, taken from the golden ratio. */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	/** One instance for every thread that builds AI. */
+	private static final ThreadLocal<EvolutionRandom> PER_THREAD = ThreadLocal.withInitial(EvolutionRandom::new);
+	
+	/** The current state of this generator. */
+	private long state;
+	
+	/**
+	 * @return the instance belonging to the calling thread. It must be reseeded before it is used.
+	 */
+	static EvolutionRandom forThread()
+	{
+		return PER_THREAD.get();
+	}
+	
+	/**
+	 * Starts the stream of a single AI.
+	 * @param seed The master seed of the run.
+	 * @param generation The generation the AI belongs to. The first AI of a run belongs to generation 0.
+	 * @param index The index of the AI within its generation.
+	 * @return this generator, for convenience.
+	 */
+	EvolutionRandom reseed(long seed, long generation, long index)
+	{
+		state = mix(seed + mix(generation * GOLDEN_GAMMA + index));
+		return this;
+	}
+	
+	/**
+	 * Derives the master seed of one of several runs started together from a single seed, such as the islands of an 
+	 * {@link IslandModel}.
+	 * @param seed The seed every run is started from.
+	 * @param index The index of the run.
+	 * @return the master seed of that run.
+	 */
+	static long split(long seed, long index)
+	{
+		//the complement keeps these seeds apart from the streams reseed(long, long, long) starts for single AI
+		return mix(seed + mix(~index * GOLDEN_GAMMA));
+	}
+	
+	@Override
+	public long nextLong()
+	{
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+	
+	/**
+	 * The finalizer of SplitMix64, which turns a weakly random value into a strongly random one.
+	 * @param z The value to be mixed.
+	 * @return the mixed value.
+	 */
+	private static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,109 @@
+package evolution;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Works out the fitness function of {@link EvolutionEngine} over steps held in primitive arrays or direct buffers.
+ * Every method works in integer arithmetic on twice the score, |width - 2x| per step rather than |width / 2.0 - x|,
+ * which holds the same information since every distance is a multiple of 0.5.
+ * <p>
+ * {@link ScalarFitnessKernel} is always available. {@link #named(String)} can also load the kernel built on the 
+ * incubating JDK Vector API, which is only loaded on request, since it needs {@code --add-modules jdk.incubator.vector}
+ * to run. Every kernel gives exactly the same results.
+ * </p>
+ */
+interface FitnessKernel
+{
+	/**
+	 * @param steps The array holding the steps to be scored.
+	 * @param offset The index of the first step within {@code steps}.
+	 * @param length The number of steps to be scored.
+	 * @param width The width the AI are scored against.
+	 * @return twice the score of the steps, which is the sum of |width - 2x| over every step x.
+	 */
+	long doubledScore(int[] steps, int offset, int length, int width);
+	
+	/**
+	 * @param steps The array holding the steps to be checked.
+	 * @param offset The index of the first step within {@code steps}.
+	 * @param length The number of steps to be checked.
+	 * @param center The x-value every step of a perfect AI lands on.
+	 * @return <b>{@code true}</b> if every step lands on {@code center}. Otherwise, <b>{@code false}</b>.
+	 */
+	boolean isPerfect(int[] steps, int offset, int length, int center);
+	
+	/**
+	 * Works out the same score as {@link #doubledScore(int[], int, int, int)} for steps held outside of the heap, such
+	 * as in an {@link OffHeapPopulationStore}.
+	 * @param steps The buffer holding the steps to be scored, as ints in the native byte order.
+	 * @param offset The index of the first step within {@code steps}, counted in ints rather than bytes.
+	 * @param length The number of steps to be scored.
+	 * @param width The width the AI are scored against.
+	 * @return twice the score of the steps, which is the sum of |width - 2x| over every step x.
+	 */
+	long doubledScore(ByteBuffer steps, int offset, int length, int width);
+	
+	/**
+	 * Checks steps held outside of the heap in the same way as {@link #isPerfect(int[], int, int, int)}.
+	 * @param steps The buffer holding the steps to be checked, as ints in the native byte order.
+	 * @param offset The index of the first step within {@code steps}, counted in ints rather than bytes.
+	 * @param length The number of steps to be checked.
+	 * @param center The x-value every step of a perfect AI lands on.
+	 * @return <b>{@code true}</b> if every step lands on {@code center}. Otherwise, <b>{@code false}</b>.
+	 */
+	boolean isPerfect(ByteBuffer steps, int offset, int length, int center);
+
+	/**
+	 * Scores many AI laid out one after another in a single array, such as a slab of a {@link PopulationArena}.
+	 * @param slab The array holding the steps of every AI, {@code steps} steps per AI.
+	 * @param from The first AI (inclusive) to be scored.
+	 * @param to The last AI (exclusive) to be scored.
+	 * @param steps The number of steps each AI takes.
+	 * @param width The width the AI are scored against.
+	 * @param scores The array the score of AI {@code a} is written to at index {@code a}.
+	 */
+	default void scoreAll(int[] slab, int from, int to, int steps, int width, double[] scores)
+	{
+		for(int a = from; a < to; a++)
+		{
+			scores[a] = doubledScore(slab, a * steps, steps, width) / 2.0;
+		}
+	}
+	
+	/**
+	 * @return the name this kernel is found by (see {@link #named(String)}).
+	 */
+	String name();
+	
+	/**
+	 * Finds a kernel by name.
+	 * @param name Either "scalar" or "vector".
+	 * @return the kernel with the given name. If the vector kernel was asked for but cannot be loaded, because it was
+	 * not compiled or the JVM was not started with {@code --add-modules jdk.incubator.vector}, the scalar kernel is
+	 * returned instead.
+	 * @throws IllegalArgumentException Thrown if there is no kernel with the given name.
+	 */
+	static FitnessKernel named(String name) throws IllegalArgumentException
+	{
+		switch(name)
+		{
+			case "scalar":
+				return new ScalarFitnessKernel();
+			case "vector":
+				try
+				{
+					//loaded by name, so that nothing else depends on the incubating module
+					return (FitnessKernel) Class.forName("evolution.VectorFitnessKernel").getDeclaredConstructor()
+							.newInstance();
+				}
+				catch(ReflectiveOperationException | LinkageError ex)
+				{
+					System.out.printf("The vector fitness kernel could not be loaded (%s). The scalar kernel will be "
+							+ "used instead.\n", ex);
+					return new ScalarFitnessKernel();
+				}
+			default:
+				throw new IllegalArgumentException("There is no fitness kernel named " + name + ".");
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package evolution;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps the mutation rate and tolerance an {@link EvolutionEngine} was created with for the whole run.
+ */
+class FixedSchedule implements MutationSchedule
+{
+	@Override
+	public double rateScale()
+	{
+		return 1;
+	}
+	
+	@Override
+	public double toleranceScale()
+	{
+		return 1;
+	}
+	
+	@Override
+	public void generationFinished(int generation, double scoreOfBest)
+	{
+	}
+	
+	@Override
+	public void save(ByteBuffer state)
+	{
+	}
+	
+	@Override
+	public void restore(ByteBuffer state)
+	{
+	}
+	
+	@Override
+	public String name()
+	{
+		return "fixed";
+	}
+}
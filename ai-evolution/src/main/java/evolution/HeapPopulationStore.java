@@ -0,0 +1,117 @@
+package evolution;
+
+/**
+ * The population store that keeps a generation in arrays on the heap, with the steps of every AI one after another in a
+ * single slab. It is the fastest store for populations that fit in a single array.
+ */
+class HeapPopulationStore implements PopulationStore
+{
+	/** The number of steps each AI takes. */
+	final int steps;
+	/** The steps of every AI, one row of {@link #steps} steps per AI. */
+	final int[] slab;
+	/** The score of every AI. */
+	final double[] scores;
+	/** The number of steps of every AI that do not land on the center. */
+	final int[] offCenters;
+	/** Whether or not each AI is a clone of its parent. */
+	final boolean[] clones;
+	
+	/**
+	 * Allocates the store.
+	 * @param aiCount The number of AI per generation.
+	 * @param steps The number of steps each AI takes.
+	 * @throws IllegalArgumentException Thrown if there are more steps in a generation than fit in a single array.
+	 */
+	HeapPopulationStore(int aiCount, int steps) throws IllegalArgumentException
+	{
+		if((long) aiCount * steps > Integer.MAX_VALUE - 8)
+		{
+			throw new IllegalArgumentException("A generation of " + aiCount + " AI with " + steps + " steps each is "
+					+ "too large for the heap store. Use an off-heap store instead.");
+		}
+		this.steps = steps;
+		slab = new int[aiCount * steps];
+		scores = new double[aiCount];
+		offCenters = new int[aiCount];
+		clones = new boolean[aiCount];
+	}
+	
+	@Override
+	public int get(int a, int step)
+	{
+		return slab[a * steps + step];
+	}
+	
+	@Override
+	public void set(int a, int step, int x)
+	{
+		slab[a * steps + step] = x;
+	}
+	
+	@Override
+	public double score(int a)
+	{
+		return scores[a];
+	}
+	
+	@Override
+	public void setScore(int a, double score)
+	{
+		scores[a] = score;
+	}
+	
+	@Override
+	public int offCenter(int a)
+	{
+		return offCenters[a];
+	}
+	
+	@Override
+	public void setOffCenter(int a, int count)
+	{
+		offCenters[a] = count;
+	}
+	
+	@Override
+	public boolean isClone(int a)
+	{
+		return clones[a];
+	}
+	
+	@Override
+	public void setClone(int a, boolean clone)
+	{
+		clones[a] = clone;
+	}
+	
+	@Override
+	public void copyRow(int a, PopulationStore source, int row)
+	{
+		System.arraycopy(((HeapPopulationStore) source).slab, row * steps, slab, a * steps, steps);
+	}
+	
+	@Override
+	public void writeRow(int a, int[] steps)
+	{
+		System.arraycopy(steps, 0, slab, a * this.steps, this.steps);
+	}
+	
+	@Override
+	public void readRow(int a, int[] steps, int offset)
+	{
+		System.arraycopy(slab, a * this.steps, steps, offset, this.steps);
+	}
+	
+	@Override
+	public void scoreAll(FitnessKernel kernel, int from, int to, int width)
+	{
+		kernel.scoreAll(slab, from, to, steps, width, scores);
+	}
+	
+	@Override
+	public boolean isPerfect(int a, FitnessKernel kernel, int center)
+	{
+		return kernel.isPerfect(slab, a * steps, steps, center);
+	}
+}
@@ -0,0 +1,320 @@
+package evolution;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the islands of an {@link IslandModel} in separate processes, which may be on separate machines. Every island is
+ * an {@link IslandWorker} connected to this coordinator over a socket channel. The coordinator sends every worker the
+ * parameters and seed of its island, then hands out batches of {@link #MIGRATION_INTERVAL} generations and exchanges the
+ * best AI the workers send back over the {@link #TOPOLOGY}, in exactly the same way as an island model. A run with a
+ * given master seed finds the same AI at the same generation as an island model with as many islands.
+ * <p>
+ * By default the coordinator starts its workers itself, as JVMs on this machine that connect over the loopback
+ * interface. With {@link #LISTEN_PORT} set, it instead waits for workers started elsewhere to connect to that port.
+ * </p>
+ */
+public class IslandCoordinator
+{
+	/** The engine whose parameters every island is created with. */
+	final EvolutionEngine template;
+	/** The number of workers, which is also the number of islands. */
+	final int workerCount;
+	/** The number of generations between two exchanges of AI. */
+	int MIGRATION_INTERVAL;
+	/** Which islands exchange AI with which: "ring" or "full". */
+	String TOPOLOGY;
+	/** The port to wait for workers on, or 0 to start local workers on any free port. */
+	int LISTEN_PORT = 0;
+	/** The best AI of every island, as of the last exchange. */
+	final AIEv[] bestAIs;
+	/** The index of the island the best AI of the last exchange belongs to. */
+	int bestIsland = 0;
+	/** The number of generations every island has simulated so far. */
+	int generation = 0;
+	/** The number of AI every island together has skipped as clones so far. */
+	long clonesSkipped = 0;
+	/** The time spent simulating on the last run in nanoseconds, leaving out starting and connecting to the workers. */
+	long simulateNanos = 0;
+	/** Receives the best AI of every island after every exchange. The default observer ignores them all. */
+	EvolutionObserver observer = new EvolutionObserver() {};
+	
+	/**
+	 * Creates a coordinator for islands that all share the parameters of another engine.
+	 * @param template The engine whose parameters every island is created with. Its seed is split into a seed for every
+	 * island (see {@link EvolutionRandom#split(long, long)}).
+	 * @param workerCount The number of workers, which is also the number of islands.
+	 * @param migrationInterval The number of generations between two exchanges of AI.
+	 * @param topology Which islands exchange AI with which: "ring" or "full".
+	 * @throws InputMismatchException Thrown if {@code workerCount} or {@code migrationInterval} are less than or equal to
+	 * zero, or if {@code topology} is not "ring" or "full".
+	 */
+	public IslandCoordinator(EvolutionEngine template, int workerCount, int migrationInterval, String topology)
+			throws InputMismatchException
+	{
+		if(workerCount <= 0)
+		{
+			throw new InputMismatchException("The number of workers must be greater than 0.");
+		}
+		if(migrationInterval <= 0)
+		{
+			throw new InputMismatchException("The migration interval must be greater than 0.");
+		}
+		if(!topology.equals("ring") && !topology.equals("full"))
+		{
+			throw new InputMismatchException("The topology must be either ring or full.");
+		}
+		this.template = template;
+		this.workerCount = workerCount;
+		MIGRATION_INTERVAL = migrationInterval;
+		TOPOLOGY = topology;
+		bestAIs = new AIEv[workerCount];
+	}
+	
+	/**
+	 * Connects to every worker and runs the islands until one of them has produced a perfect AI, or until a number of
+	 * generations have been simulated. {@link #observer} is told about the best AI of every exchange. Every worker is
+	 * stopped before this returns.
+	 * @param maxGenerations The most generations to simulate, or 0 to run until a perfect AI is found.
+	 * @return the best AI that was found. If several islands found a perfect AI at the same exchange, the one on the
+	 * island with the lowest index is returned.
+	 * @throws IOException Thrown if a worker could not be started, or if the connection to any worker fails.
+	 */
+	public AIEv run(int maxGenerations) throws IOException
+	{
+		ArrayList<Process> processes = new ArrayList<Process>();
+		SocketChannel[] channels = new SocketChannel[workerCount];
+		try(ServerSocketChannel server = ServerSocketChannel.open())
+		{
+			server.bind(LISTEN_PORT == 0 ? new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)
+					: new InetSocketAddress(LISTEN_PORT));
+			if(LISTEN_PORT == 0)
+			{
+				int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+				for(int i = 0; i < workerCount; i++)
+				{
+					processes.add(startWorker(port));
+				}
+			}
+			accept(server, channels, processes);
+			
+			ByteBuffer frame = ByteBuffer.allocate(1024);
+			for(int i = 0; i < workerCount; i++)
+			{
+				frame.clear();
+				frame.putInt(IslandMessages.CONFIGURE).putInt(template.WIDTH).putInt(template.USABLE_WIDTH)
+						.putInt(template.STEPS).putInt(template.AI_COUNT).putInt(template.TOLERANCE)
+						.putDouble(template.MUTATION_RATE).putLong(EvolutionRandom.split(template.SEED, i))
+						.put((byte) (template.INCREMENTAL_FITNESS ? 1 : 0))
+						//local workers already run one to a core, so only remote workers spread out across their cores
+						.put((byte) (template.PARALLEL_SIMULATE && LISTEN_PORT != 0 ? 1 : 0));
+				IslandMessages.putString(frame, template.KERNEL.name());
+				IslandMessages.putString(frame, template.STORE);
+				IslandMessages.putString(frame, template.SELECTION);
+				frame.putInt(template.PARENTS);
+				IslandMessages.putString(frame, template.SCHEDULE);
+				IslandMessages.send(channels[i], frame);
+			}
+			frame = receiveResults(channels, frame);
+			
+			long start = System.nanoTime();
+			while(true)
+			{
+				int perfectIsland = IslandModel.firstPerfect(bestAIs, template);
+				bestIsland = perfectIsland >= 0 ? perfectIsland : IslandModel.best(bestAIs);
+				observer.batchFinished(generation, bestAIs[bestIsland]);
+				if(perfectIsland >= 0 || (maxGenerations > 0 && generation >= maxGenerations))
+				{
+					break;
+				}
+				if(generation > 0)
+				{
+					IslandModel.migrate(bestAIs, bestIsland, TOPOLOGY);
+				}
+				
+				int count = maxGenerations > 0 ? Math.min(MIGRATION_INTERVAL, maxGenerations - generation)
+						: MIGRATION_INTERVAL;
+				for(int i = 0; i < workerCount; i++)
+				{
+					int size = 2 * Integer.BYTES + IslandMessages.size(bestAIs[i]);
+					if(frame.capacity() < size)
+					{
+						frame = ByteBuffer.allocate(size);
+					}
+					frame.clear();
+					frame.putInt(IslandMessages.SIMULATE).putInt(count);
+					IslandMessages.putAI(frame, bestAIs[i]);
+					IslandMessages.send(channels[i], frame);
+				}
+				//every worker simulates its batch at the same time, so waiting on them in order takes as long as the
+				//	slowest one
+				frame = receiveResults(channels, frame);
+			}
+			simulateNanos = System.nanoTime() - start;
+			
+			frame.clear();
+			frame.putInt(IslandMessages.STOP);
+			for(SocketChannel channel: channels)
+			{
+				IslandMessages.send(channel, frame);
+			}
+			return bestAIs[bestIsland];
+		}
+		finally
+		{
+			for(SocketChannel channel: channels)
+			{
+				if(channel != null)
+				{
+					channel.close();
+				}
+			}
+			for(Process process: processes)
+			{
+				try
+				{
+					//a worker that was told to stop exits on its own, while any other is stopped
+					if(!process.waitFor(10, TimeUnit.SECONDS))
+					{
+						process.destroy();
+					}
+				}
+				catch(InterruptedException ex)
+				{
+					process.destroy();
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Starts a worker in a new JVM on this machine, running with the same class path as this one.
+	 * @param port The port on the loopback interface the worker connects to.
+	 * @return the process of the worker.
+	 * @throws IOException Thrown if the worker could not be started.
+	 */
+	Process startWorker(int port) throws IOException
+	{
+		ArrayList<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		if(template.KERNEL.name().equals("vector"))
+		{
+			command.add("--add-modules");
+			command.add("jdk.incubator.vector");
+		}
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(IslandWorker.class.getName());
+		command.add(InetAddress.getLoopbackAddress().getHostAddress());
+		command.add(String.valueOf(port));
+		return new ProcessBuilder(command).inheritIO().start();
+	}
+	
+	/**
+	 * Waits for every worker to connect.
+	 * @param server The channel the workers connect to.
+	 * @param channels The array the channel of every worker is put into, in the order they connect.
+	 * @param processes The local workers that were started, if any.
+	 * @throws IOException Thrown if a local worker exits before it connects.
+	 */
+	void accept(ServerSocketChannel server, SocketChannel[] channels, ArrayList<Process> processes) throws IOException
+	{
+		server.configureBlocking(false);
+		try(Selector selector = Selector.open())
+		{
+			server.register(selector, SelectionKey.OP_ACCEPT);
+			int connected = 0;
+			while(connected < channels.length)
+			{
+				//wakes up every second to make sure no local worker has died, since it would never connect
+				selector.select(1000);
+				selector.selectedKeys().clear();
+				SocketChannel channel;
+				while(connected < channels.length && (channel = server.accept()) != null)
+				{
+					channel.configureBlocking(true);
+					channel.socket().setTcpNoDelay(true);
+					channels[connected++] = channel;
+				}
+				for(Process process: processes)
+				{
+					if(!process.isAlive())
+					{
+						throw new IOException("An island worker exited with code " + process.exitValue()
+								+ " before it connected.");
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Receives the {@link IslandMessages#RESULT} of every worker.
+	 * @param channels The channel of every worker.
+	 * @param frame A buffer to receive the results into, which is used if it is large enough.
+	 * @return the buffer that was used.
+	 * @throws IOException Thrown if the connection to any worker fails, or if it sends anything else. Every connection is
+	 * closed by {@link #run(int)} when this is thrown.
+	 */
+	ByteBuffer receiveResults(SocketChannel[] channels, ByteBuffer frame) throws IOException
+	{
+		clonesSkipped = 0;
+		for(int i = 0; i < channels.length; i++)
+		{
+			frame = IslandMessages.receive(channels[i], frame, IslandMessages.maxSize(template.STEPS));
+			int type = frame.getInt();
+			if(type != IslandMessages.RESULT)
+			{
+				throw new IOException("Unexpected island message of type " + type + ".");
+			}
+			generation = frame.getInt();
+			clonesSkipped += frame.getLong();
+			bestAIs[i] = IslandMessages.getAI(frame);
+		}
+		return frame;
+	}
+	
+	/**
+	 * Measures how the throughput of islands in separate processes grows with the number of workers, by running the
+	 * same number of generations on 1, 2, 4 and so on up to {@code maxWorkers} workers, and prints a table of the
+	 * results. Every worker simulates the same number of generations, so a perfect speedup is the number of workers.
+	 * @param template The engine whose parameters every island is created with.
+	 * @param maxWorkers The most workers to measure.
+	 * @param generations The number of generations every run simulates.
+	 * @param migrationInterval The number of generations between two exchanges of AI.
+	 * @param topology Which islands exchange AI with which: "ring" or "full".
+	 * @throws IOException Thrown if a worker could not be started, or if the connection to any worker fails.
+	 */
+	public static void reportScaling(EvolutionEngine template, int maxWorkers, int generations, int migrationInterval,
+			String topology) throws IOException
+	{
+		System.out.println("Workers  Generations  AI built    Time (ms)  AI per second  Speedup");
+		double baseline = 0;
+		for(int workers = 1; workers <= maxWorkers; workers = workers == maxWorkers ? workers + 1
+				: Math.min(maxWorkers, workers * 2))
+		{
+			IslandCoordinator coordinator = new IslandCoordinator(template, workers, migrationInterval, topology);
+			coordinator.run(generations);
+			long built = (long) coordinator.generation * template.AI_COUNT * workers;
+			double seconds = coordinator.simulateNanos / 1e9;
+			double throughput = built / seconds;
+			if(workers == 1)
+			{
+				baseline = throughput;
+			}
+			System.out.printf("%-8d %-12d %-11d %-10d %-14.0f %.2fx\n", workers, coordinator.generation, built,
+					coordinator.simulateNanos / 1_000_000, throughput, throughput / baseline);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package evolution;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary messages an {@link IslandCoordinator} and its {@link IslandWorker}s send each other over socket channels.
+ * Every message is a frame made of its length in bytes, then its type, then its fields, all big-endian:
+ * <ul>
+ * <li>{@link #CONFIGURE}: width, usable width, steps, AI count and tolerance as ints, then the mutation rate as a
+ * double, the master seed of the island as a long, whether or not fitness is incremental and whether or not the worker
+ * builds its generations across all of its cores as a byte each, then the names of the fitness kernel, population
+ * store and selection strategy, then the number of parents of every generation as an int, then the name of the 
+ * mutation schedule.</li>
+ * <li>{@link #SIMULATE}: the number of generations to simulate as an int, then the AI to build them from.</li>
+ * <li>{@link #RESULT}: the number of generations the island has simulated so far as an int, the number of AI it has
+ * skipped as clones as a long, then its best AI.</li>
+ * <li>{@link #STOP}: no fields.</li>
+ * </ul>
+ * An AI is sent as its score as a double, its number of steps as an int, then every step as an int. A string is sent as
+ * its length in bytes as an int, then its bytes in UTF-8.
+ */
+class IslandMessages
+{
+	/** Sent to a worker once, to set up its island. The worker replies with the {@link #RESULT} of generation 0. */
+	static final int CONFIGURE = 1;
+	/** Sent to a worker to simulate a batch of generations. The worker replies with a {@link #RESULT}. */
+	static final int SIMULATE = 2;
+	/** Sent by a worker with the best AI of its island. */
+	static final int RESULT = 3;
+	/** Sent to a worker to shut it down. */
+	static final int STOP = 4;
+	/**
+	 * The most bytes a frame holds besides the steps of its AI, which is as much as a {@link #CONFIGURE} frame can hold.
+	 * No frame holds more than a single AI.
+	 */
+	static final int MAX_FIELDS = 1024;
+	
+	/**
+	 * Sends a whole frame.
+	 * @param channel The channel to send the frame over.
+	 * @param frame A buffer holding the type and fields of the message, from position 0 up to its position. It is
+	 * flipped and sent with its length in front.
+	 * @throws IOException Thrown if the channel fails.
+	 */
+	static void send(SocketChannel channel, ByteBuffer frame) throws IOException
+	{
+		frame.flip();
+		ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).putInt(0, frame.remaining());
+		while(length.hasRemaining())
+		{
+			channel.write(length);
+		}
+		while(frame.hasRemaining())
+		{
+			channel.write(frame);
+		}
+	}
+	
+	/**
+	 * @param steps The number of steps of every AI, or 0 before the number is known.
+	 * @return the most bytes a legal frame holds when every AI has that many steps.
+	 */
+	static int maxSize(int steps)
+	{
+		return (int) Math.min(Integer.MAX_VALUE, MAX_FIELDS + (long) steps * Integer.BYTES);
+	}
+	
+	/**
+	 * Receives a whole frame.
+	 * @param channel The channel to receive the frame from.
+	 * @param frame A buffer to receive the frame into, which is used if it is large enough.
+	 * @param maxSize The most bytes a legal frame holds (see {@link #maxSize(int)}). A frame that claims to be any
+	 * longer is never read, since its length could not have been sent by a coordinator or worker.
+	 * @return a buffer holding the type and fields of the message, ready to be read.
+	 * @throws IOException Thrown if the channel fails or is closed part way through a frame, or if the length of the
+	 * frame is negative or greater than {@code maxSize}.
+	 */
+	static ByteBuffer receive(SocketChannel channel, ByteBuffer frame, int maxSize) throws IOException
+	{
+		ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+		fill(channel, length);
+		int size = length.getInt(0);
+		if(size < Integer.BYTES || size > maxSize)
+		{
+			throw new IOException("Island message of " + size + " bytes from " + channel.getRemoteAddress()
+					+ " is not between " + Integer.BYTES + " and " + maxSize + " bytes long.");
+		}
+		if(frame == null || frame.capacity() < size)
+		{
+			frame = ByteBuffer.allocate(size);
+		}
+		frame.clear().limit(size);
+		fill(channel, frame);
+		return frame.flip();
+	}
+	
+	/**
+	 * Reads from a channel until a buffer is full.
+	 * @param channel The channel to read from.
+	 * @param buffer The buffer to fill.
+	 * @throws IOException Thrown if the channel fails or is closed before the buffer is full.
+	 */
+	static void fill(SocketChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			if(channel.read(buffer) < 0)
+			{
+				throw new EOFException("The island channel was closed part way through a message.");
+			}
+		}
+	}
+	
+	/**
+	 * @param frame The buffer to write to, which must be large enough (see {@link #size(AIEv)}).
+	 * @param ai The AI to write. It must already be scored.
+	 */
+	static void putAI(ByteBuffer frame, AIEv ai)
+	{
+		frame.putDouble(ai.score);
+		frame.putInt(ai.steps.length);
+		frame.asIntBuffer().put(ai.steps);
+		frame.position(frame.position() + ai.steps.length * Integer.BYTES);
+	}
+	
+	/**
+	 * @param frame The buffer to read from.
+	 * @return a new scored AI with the steps and score that were read.
+	 * @throws IOException Thrown if the number of steps is negative or runs past the end of the frame.
+	 */
+	static AIEv getAI(ByteBuffer frame) throws IOException
+	{
+		double score = frame.getDouble();
+		int[] steps = new int[count(frame, Integer.BYTES)];
+		frame.asIntBuffer().get(steps);
+		frame.position(frame.position() + steps.length * Integer.BYTES);
+		return new AIEv(steps, score);
+	}
+	
+	/**
+	 * @param ai An AI.
+	 * @return the number of bytes {@link #putAI(ByteBuffer, AIEv)} writes for that AI.
+	 */
+	static int size(AIEv ai)
+	{
+		return Double.BYTES + Integer.BYTES + ai.steps.length * Integer.BYTES;
+	}
+	
+	/**
+	 * @param frame The buffer to write to.
+	 * @param string The string to write.
+	 */
+	static void putString(ByteBuffer frame, String string)
+	{
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		frame.putInt(bytes.length).put(bytes);
+	}
+	
+	/**
+	 * @param frame The buffer to read from.
+	 * @return the string that was read.
+	 * @throws IOException Thrown if the length of the string is negative or runs past the end of the frame.
+	 */
+	static String getString(ByteBuffer frame) throws IOException
+	{
+		byte[] bytes = new byte[count(frame, Byte.BYTES)];
+		frame.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Reads the number of elements of an array that follows in a frame.
+	 * @param frame The buffer to read from.
+	 * @param bytes The number of bytes of every element.
+	 * @return the number of elements that was read.
+	 * @throws IOException Thrown if the number is negative, or if that many elements run past the end of the frame.
+	 */
+	static int count(ByteBuffer frame, int bytes) throws IOException
+	{
+		int count = frame.getInt();
+		if(count < 0 || count > frame.remaining() / bytes)
+		{
+			throw new IOException("Island message holds " + count + " elements where only " + frame.remaining() / bytes
+					+ " fit.");
+		}
+		return count;
+	}
+}
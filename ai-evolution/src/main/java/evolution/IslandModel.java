@@ -0,0 +1,265 @@
+package evolution;
+
+import java.util.InputMismatchException;
+import java.util.concurrent.Phaser;
+
+/**
+ * Runs several {@link EvolutionEngine}s side by side, each with a lineage of its own. Every island is an engine with its
+ * own master seed, run on a thread of its own, so the islands search different parts of the problem at the same time
+ * instead of taking turns on a single lineage.
+ * <p>
+ * Every {@link #MIGRATION_INTERVAL} generations the islands wait for each other and exchange their best AI over the
+ * {@link #TOPOLOGY}. On a "ring", each island receives the best AI of the island before it; when "full"y connected,
+ * every island receives the best AI of all of them. An island only takes in an AI that is better than its own best. The
+ * exchange happens while every island is waiting, so a run with a given master seed is reproducible no matter how the
+ * threads are scheduled. The run finishes at the first exchange where any island's best AI is perfect.
+ * </p>
+ */
+public class IslandModel
+{
+	/** Every island, in order. Each one runs its generations on a single thread. */
+	final EvolutionEngine[] islands;
+	/** The number of generations between two exchanges of AI. */
+	int MIGRATION_INTERVAL;
+	/** Which islands exchange AI with which: "ring" or "full". */
+	String TOPOLOGY;
+	/** The best AI of every island, as of the last exchange. */
+	final AIEv[] bestAIs;
+	/** The index of the island the best AI of the last exchange belongs to. */
+	int bestIsland = 0;
+	/** Whether or not an island has found a perfect AI. */
+	volatile boolean finished;
+	/** The first exception or error thrown by an island, which ends the run. */
+	volatile Throwable failure;
+	/** Receives the best AI of every island after every exchange. The default observer ignores them all. */
+	EvolutionObserver observer = new EvolutionObserver() {};
+	
+	/**
+	 * Creates islands that all share the parameters of another engine.
+	 * @param template The engine whose parameters every island is created with. Its seed is split into a seed for every
+	 * island (see {@link EvolutionRandom#split(long, long)}).
+	 * @param islandCount The number of islands.
+	 * @param migrationInterval The number of generations between two exchanges of AI.
+	 * @param topology Which islands exchange AI with which: "ring" or "full".
+	 * @throws InputMismatchException Thrown if {@code islandCount} or {@code migrationInterval} are less than or equal to
+	 * zero, or if {@code topology} is not "ring" or "full".
+	 */
+	public IslandModel(EvolutionEngine template, int islandCount, int migrationInterval, String topology)
+			throws InputMismatchException
+	{
+		if(islandCount <= 0)
+		{
+			throw new InputMismatchException("The number of islands must be greater than 0.");
+		}
+		if(migrationInterval <= 0)
+		{
+			throw new InputMismatchException("The migration interval must be greater than 0.");
+		}
+		if(!topology.equals("ring") && !topology.equals("full"))
+		{
+			throw new InputMismatchException("The topology must be either ring or full.");
+		}
+		MIGRATION_INTERVAL = migrationInterval;
+		TOPOLOGY = topology;
+		islands = new EvolutionEngine[islandCount];
+		bestAIs = new AIEv[islandCount];
+		for(int i = 0; i < islandCount; i++)
+		{
+			EvolutionEngine island = new EvolutionEngine(template.WIDTH, template.USABLE_WIDTH, template.STEPS,
+					template.AI_COUNT, template.TOLERANCE, template.MUTATION_RATE);
+			//every island already has a thread of its own, so it builds its generations on that thread alone
+			island.PARALLEL_SIMULATE = false;
+			//the islands exchange AI in lockstep, so every island simulates whole intervals
+			island.STOP_WHEN_PERFECT = false;
+			island.INCREMENTAL_FITNESS = template.INCREMENTAL_FITNESS;
+			island.KERNEL = template.KERNEL;
+			island.STORE = template.STORE;
+			island.SELECTION = template.SELECTION;
+			island.PARENTS = template.PARENTS;
+			island.SCHEDULE = template.SCHEDULE;
+			island.SEED = EvolutionRandom.split(template.SEED, i);
+			islands[i] = island;
+		}
+	}
+	
+	/**
+	 * Runs every island until one of them has produced a perfect AI. {@link #observer} is told about the best AI of every
+	 * exchange.
+	 * @return the perfect AI that was found. If several islands found one at the same exchange, the one on the island
+	 * with the lowest index is returned.
+	 * @throws RuntimeException Thrown if any island threw an exception, which stops every other island. An island that
+	 * threw an {@link Error}, such as running out of memory, stops every other island the same way, and the error is 
+	 * thrown as it is.
+	 */
+	public AIEv run() throws RuntimeException
+	{
+		finished = false;
+		failure = null;
+		for(int i = 0; i < islands.length; i++)
+		{
+			bestAIs[i] = islands[i].start();
+			islands[i].score(bestAIs[i]);
+		}
+		
+		//the last island to arrive exchanges the AI of every island before any of them carries on
+		Phaser phaser = new Phaser(islands.length)
+		{
+			@Override
+			protected boolean onAdvance(int phase, int registeredParties)
+			{
+				exchange();
+				return false;
+			}
+		};
+		Thread[] threads = new Thread[islands.length];
+		for(int i = 0; i < islands.length; i++)
+		{
+			int island = i;
+			threads[i] = new Thread(() -> evolve(island, phaser), "Island " + i);
+			threads[i].start();
+		}
+		
+		for(Thread thread: threads)
+		{
+			try
+			{
+				thread.join();
+			}
+			catch(InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				phaser.forceTermination();
+			}
+		}
+		//an island that ran out of memory or hit any other error ends the run with it, as it would on this thread
+		if(failure instanceof Error)
+		{
+			throw (Error) failure;
+		}
+		if(failure != null)
+		{
+			throw (RuntimeException) failure;
+		}
+		return bestAIs[bestIsland];
+	}
+	
+	/**
+	 * @return the number of generations every island has simulated so far.
+	 */
+	public int generation()
+	{
+		return islands[0].GEN_COUNTER;
+	}
+	
+	/**
+	 * Runs a single island on the calling thread until any island has produced a perfect AI.
+	 * @param island The index of the island.
+	 * @param phaser The phaser every island arrives at before each exchange. It is terminated once any island fails, and
+	 * stays terminated, so every other island stops at its next exchange instead of waiting for the island that failed.
+	 */
+	void evolve(int island, Phaser phaser)
+	{
+		EvolutionEngine engine = islands[island];
+		try
+		{
+			//the first exchange only checks the starting AI, in case one of them is already perfect
+			if(phaser.arriveAndAwaitAdvance() < 0)
+			{
+				return;
+			}
+			while(!finished)
+			{
+				bestAIs[island] = engine.simulate(bestAIs[island], MIGRATION_INTERVAL, engine.TOLERANCE);
+				if(phaser.arriveAndAwaitAdvance() < 0)
+				{
+					//another island has failed, and has already recorded why
+					return;
+				}
+			}
+		}
+		catch(Throwable ex)
+		{
+			synchronized(this)
+			{
+				if(failure == null)
+				{
+					failure = ex;
+				}
+			}
+			//wakes every other island, and stops any that have yet to arrive from waiting for this island forever
+			phaser.forceTermination();
+		}
+	}
+	
+	/**
+	 * Finds the best AI of every island, and either finishes the run if any of them are perfect or lets the islands
+	 * exchange their best AI over the {@link #TOPOLOGY}. Only ever run while every island is waiting.
+	 */
+	void exchange()
+	{
+		int perfectIsland = firstPerfect(bestAIs, islands[0]);
+		finished = perfectIsland >= 0;
+		bestIsland = finished ? perfectIsland : best(bestAIs);
+		observer.batchFinished(generation(), bestAIs[bestIsland]);
+		if(!finished && generation() > 0)
+		{
+			migrate(bestAIs, bestIsland, TOPOLOGY);
+		}
+	}
+	
+	/**
+	 * @param bestAIs The best AI of every island, all of which are scored.
+	 * @return the index of the island with the best AI. The lowest score wins, and on a tie the lowest island wins.
+	 */
+	static int best(AIEv[] bestAIs)
+	{
+		int best = 0;
+		for(int i = 1; i < bestAIs.length; i++)
+		{
+			if(bestAIs[best].score > bestAIs[i].score)
+			{
+				best = i;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * @param bestAIs The best AI of every island.
+	 * @param engine An engine with the parameters of the islands, which checks each AI.
+	 * @return the index of the first island whose best AI is perfect, or -1 if there is none. No AI scores lower than a 
+	 * perfect one, so that island always holds a best AI.
+	 */
+	static int firstPerfect(AIEv[] bestAIs, EvolutionEngine engine)
+	{
+		for(int i = 0; i < bestAIs.length; i++)
+		{
+			if(engine.isPerfect(bestAIs[i]))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Lets every island take in the AI it receives over a topology, if that AI is better than its own best.
+	 * @param bestAIs The best AI of every island, which are replaced by the AI they take in.
+	 * @param bestIsland The index of the island with the best AI (see {@link #best(AIEv[])}).
+	 * @param topology Which islands exchange AI with which: "ring" or "full".
+	 */
+	static void migrate(AIEv[] bestAIs, int bestIsland, String topology)
+	{
+		//the AI are shared rather than copied, since an engine never changes the steps of the AI it is given
+		AIEv[] migrants = bestAIs.clone();
+		for(int i = 0; i < bestAIs.length; i++)
+		{
+			AIEv migrant = topology.equals("ring") ? migrants[(i + bestAIs.length - 1) % bestAIs.length]
+					: migrants[bestIsland];
+			if(bestAIs[i].score > migrant.score)
+			{
+				bestAIs[i] = migrant;
+			}
+		}
+	}
+}
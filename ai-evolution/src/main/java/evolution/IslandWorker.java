@@ -0,0 +1,94 @@
+package evolution;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A process that runs a single island of an {@link IslandCoordinator}. The worker connects to the coordinator, is sent
+ * the parameters and seed of its island, and from then on simulates every batch of generations it is sent and replies
+ * with the best AI of the batch, until it is told to stop. See {@link IslandMessages} for what is sent.
+ */
+public class IslandWorker
+{
+	/**
+	 * Runs a worker until its coordinator tells it to stop.
+	 * @param args The host and port of the coordinator.
+	 * @throws IOException Thrown if the connection to the coordinator fails.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length != 2)
+		{
+			System.out.println("Usage: java evolution.IslandWorker host port");
+			return;
+		}
+		
+		try(SocketChannel channel = SocketChannel.open(new InetSocketAddress(args[0], Integer.parseInt(args[1]))))
+		{
+			new IslandWorker().serve(channel);
+		}
+	}
+	
+	/**
+	 * Answers every message from the coordinator until it sends {@link IslandMessages#STOP}.
+	 * @param channel The channel connected to the coordinator.
+	 * @throws IOException Thrown if the connection to the coordinator fails, or if a message is not understood.
+	 */
+	void serve(SocketChannel channel) throws IOException
+	{
+		EvolutionEngine engine = null;
+		AIEv bestAI = null;
+		ByteBuffer frame = null;
+		ByteBuffer reply = null;
+		
+		while(true)
+		{
+			//only a CONFIGURE can be sent before the number of steps is known
+			frame = IslandMessages.receive(channel, frame, IslandMessages.maxSize(engine == null ? 0 : engine.STEPS));
+			int type = frame.getInt();
+			if(type == IslandMessages.CONFIGURE)
+			{
+				engine = new EvolutionEngine(frame.getInt(), frame.getInt(), frame.getInt(), frame.getInt(),
+						frame.getInt(), frame.getDouble());
+				engine.SEED = frame.getLong();
+				engine.INCREMENTAL_FITNESS = frame.get() != 0;
+				engine.PARALLEL_SIMULATE = frame.get() != 0;
+				//the islands exchange AI in lockstep, so every island simulates whole batches
+				engine.STOP_WHEN_PERFECT = false;
+				engine.KERNEL = FitnessKernel.named(IslandMessages.getString(frame));
+				engine.STORE = IslandMessages.getString(frame);
+				engine.SELECTION = IslandMessages.getString(frame);
+				engine.PARENTS = frame.getInt();
+				engine.SCHEDULE = IslandMessages.getString(frame);
+				bestAI = engine.start();
+				engine.score(bestAI);
+			}
+			else if(type == IslandMessages.SIMULATE && engine != null)
+			{
+				int count = frame.getInt();
+				bestAI = engine.simulate(IslandMessages.getAI(frame), count, engine.TOLERANCE);
+			}
+			else if(type == IslandMessages.STOP)
+			{
+				return;
+			}
+			else
+			{
+				throw new IOException("Unexpected island message of type " + type + ".");
+			}
+			
+			//both configuring and simulating are answered with the best AI of the island
+			int size = 2 * Integer.BYTES + Long.BYTES + IslandMessages.size(bestAI);
+			if(reply == null || reply.capacity() < size)
+			{
+				reply = ByteBuffer.allocate(size);
+			}
+			reply.clear();
+			reply.putInt(IslandMessages.RESULT).putInt(engine.GEN_COUNTER).putLong(engine.CLONES_SKIPPED.sum());
+			IslandMessages.putAI(reply, bestAI);
+			IslandMessages.send(channel, reply);
+		}
+	}
+}
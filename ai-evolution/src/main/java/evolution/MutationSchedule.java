@@ -0,0 +1,115 @@
+package evolution;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Adapts the mutation rate and tolerance of an {@link EvolutionEngine} from one generation to the next, based on how the
+ * best score of the run has improved so far. Early on, large jumps of up to the full tolerance help an AI find the 
+ * center quickly, but once most steps are close to it almost every such jump lands further away. A schedule can shrink
+ * the rate and tolerance as a run converges so that more of the late AI are small, useful changes.
+ * <p>
+ * A schedule works in scales rather than absolute values: the engine multiplies its {@link EvolutionEngine#MUTATION_RATE}
+ * and tolerance by {@link #rateScale()} and {@link #toleranceScale()} before every generation, and both scales are never
+ * more than 1. A schedule only looks at the best score of every generation, which is the same on one core or many, so 
+ * a run with a schedule is still reproduced exactly by its seed.
+ * </p>
+ * <p>
+ * A schedule keeps the state of a single run, so every engine needs a schedule of its own.
+ * </p>
+ */
+interface MutationSchedule
+{
+	/** The smallest scale a schedule shrinks the rate or tolerance to. */
+	double MIN_SCALE = 1.0 / 1024;
+	/** The most bytes {@link #save(ByteBuffer)} writes. */
+	int STATE_BYTES = 3 * Double.BYTES + 2 * Integer.BYTES;
+	
+	/**
+	 * @return the number the mutation rate is multiplied by for the next generation, from {@link #MIN_SCALE} up to 1.
+	 */
+	double rateScale();
+	
+	/**
+	 * @return the number the tolerance is multiplied by for the next generation, from {@link #MIN_SCALE} up to 1. The 
+	 * tolerance is rounded and never less than 1.
+	 */
+	double toleranceScale();
+	
+	/**
+	 * Tells this schedule about a generation once it has been built and its best AI found.
+	 * @param generation The generation that was just built.
+	 * @param scoreOfBest The score of the best AI of that generation.
+	 */
+	void generationFinished(int generation, double scoreOfBest);
+	
+	/**
+	 * Writes the state of this schedule, so that a resumed run carries on with the same rate and tolerance.
+	 * @param state The buffer to write to, with at least {@link #STATE_BYTES} bytes remaining.
+	 */
+	void save(ByteBuffer state);
+	
+	/**
+	 * Sets this schedule back to a state written by {@link #save(ByteBuffer)}.
+	 * @param state The buffer to read from, written by a schedule of the same name.
+	 */
+	void restore(ByteBuffer state);
+	
+	/**
+	 * @return the name of this schedule, as it is passed to {@link #named(String)}.
+	 */
+	String name();
+	
+	/**
+	 * @param name The name of a schedule: "fixed" to keep the rate and tolerance the engine was created with, 
+	 * "one-fifth" to follow the 1/5th success rule (see {@link OneFifthSchedule}), or "anneal" to shrink both whenever 
+	 * the best score stops improving (see {@link AnnealingSchedule}). "one-fifth:&lt;window&gt;" and 
+	 * "anneal:&lt;patience&gt;" set the number of generations each looks at instead of its default.
+	 * @return a new schedule, at the start of a run.
+	 * @throws IllegalArgumentException Thrown if there is no schedule with the given name.
+	 */
+	static MutationSchedule named(String name) throws IllegalArgumentException
+	{
+		if(name.equals("fixed"))
+		{
+			return new FixedSchedule();
+		}
+		if(name.equals("one-fifth") || name.startsWith("one-fifth:"))
+		{
+			return new OneFifthSchedule(name, generations(name, "one-fifth", OneFifthSchedule.DEFAULT_WINDOW));
+		}
+		if(name.equals("anneal") || name.startsWith("anneal:"))
+		{
+			return new AnnealingSchedule(name, generations(name, "anneal", AnnealingSchedule.DEFAULT_PATIENCE));
+		}
+		throw new IllegalArgumentException("There is no mutation schedule named " + name + ".");
+	}
+	
+	/**
+	 * @param name The name of a schedule, which may end in ":&lt;generations&gt;".
+	 * @param prefix The name of the schedule without the number of generations.
+	 * @param fallback The number of generations if the name does not give any.
+	 * @return the number of generations given by the name.
+	 * @throws IllegalArgumentException Thrown if the number of generations is not a number greater than 0.
+	 */
+	private static int generations(String name, String prefix, int fallback) throws IllegalArgumentException
+	{
+		if(name.equals(prefix))
+		{
+			return fallback;
+		}
+		int generations;
+		try
+		{
+			generations = Integer.parseInt(name.substring(prefix.length() + 1));
+		}
+		catch(NumberFormatException ex)
+		{
+			throw new IllegalArgumentException("The number of generations of a schedule must be a number.");
+		}
+		if(generations <= 0)
+		{
+			throw new IllegalArgumentException("The number of generations of a schedule must be greater than 0.");
+		}
+		return generations;
+	}
+}
@@ -0,0 +1,253 @@
+package evolution;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The population store that keeps a generation in direct buffers outside of the heap. The heap only ever holds the
+ * handful of buffer objects, no matter how many AI there are, so the garbage collector never has to look at the
+ * population, and a generation can be larger than the largest array Java allows.
+ * <p>
+ * The steps are laid out as lines of ints, struct-of-arrays style. Agent-major stores hold one line per AI, which is
+ * every step of that AI, so building and scoring a single AI reads a single contiguous run of memory. Gene-major stores
+ * hold one line per step, which is that step of every AI, so a step of every AI can be read in one pass, the way a
+ * generation is drawn and rescored in full. A single buffer can hold at most 2 GiB, so the lines are spread over as
+ * many buffers of at most {@link #MAX_CHUNK_BYTES} bytes as needed, each holding a whole number of lines.
+ * </p>
+ * <p>
+ * The steps of an AI in a gene-major store are never next to each other, so the {@link FitnessKernel} it is given,
+ * which only reads runs of steps, is not used to score or check them. They are always worked out one step at a time.
+ * </p>
+ */
+class OffHeapPopulationStore implements PopulationStore
+{
+	/** The most bytes of steps held in any one buffer. */
+	static final int MAX_CHUNK_BYTES = 1 << 30;
+	
+	/** The number of AI per generation. */
+	final int aiCount;
+	/** The number of steps each AI takes. */
+	final int steps;
+	/** Whether the lines are steps (gene-major) or AI (agent-major). */
+	final boolean geneMajor;
+	/** The number of ints in each line. */
+	final int lineLength;
+	/** The number of lines in each chunk is 2 to the power of this, so that a line's chunk is found with a shift. */
+	final int chunkShift;
+	/** The number of lines in each chunk minus one, which gives the index of a line within its chunk. */
+	final int chunkMask;
+	/** Every chunk of steps, which the {@link FitnessKernel} reads directly. */
+	final ByteBuffer[] chunks;
+	/** Every chunk of steps, viewed as ints. */
+	final IntBuffer[] lines;
+	/** The score of every AI. */
+	final DoubleBuffer scores;
+	/** The number of steps of every AI that do not land on the center. */
+	final IntBuffer offCenters;
+	/** Whether or not each AI is a clone of its parent, as 1 or 0. */
+	final ByteBuffer clones;
+	
+	/**
+	 * Allocates the store.
+	 * @param aiCount The number of AI per generation.
+	 * @param steps The number of steps each AI takes.
+	 * @param geneMajor Whether the steps are laid out one step after another (true) or one AI after another (false).
+	 * @throws IllegalArgumentException Thrown if a single line of steps, or the scores of every AI, are too large for a
+	 * buffer.
+	 */
+	OffHeapPopulationStore(int aiCount, int steps, boolean geneMajor) throws IllegalArgumentException
+	{
+		this.aiCount = aiCount;
+		this.steps = steps;
+		this.geneMajor = geneMajor;
+		int lineCount = geneMajor ? steps : aiCount;
+		lineLength = geneMajor ? aiCount : steps;
+		if((long) lineLength * Integer.BYTES > MAX_CHUNK_BYTES)
+		{
+			throw new IllegalArgumentException("A line of " + lineLength + " steps is too large for a single buffer.");
+		}
+		//the scores are the widest of the buffers that hold a value for every AI
+		if((long) aiCount * Double.BYTES > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("The scores of " + aiCount + " AI are too large for a single buffer.");
+		}
+		
+		int linesPerChunk = Integer.highestOneBit(MAX_CHUNK_BYTES / (Math.max(1, lineLength) * Integer.BYTES));
+		chunkShift = Integer.numberOfTrailingZeros(linesPerChunk);
+		chunkMask = linesPerChunk - 1;
+		int chunkCount = (int) (((long) lineCount + linesPerChunk - 1) >> chunkShift);
+		chunks = new ByteBuffer[chunkCount];
+		lines = new IntBuffer[chunkCount];
+		for(int c = 0; c < chunkCount; c++)
+		{
+			//every chunk is full except the last, which only holds the lines that are left over
+			int linesInChunk = Math.min(linesPerChunk, lineCount - c * linesPerChunk);
+			chunks[c] = ByteBuffer.allocateDirect(linesInChunk * lineLength * Integer.BYTES)
+					.order(ByteOrder.nativeOrder());
+			lines[c] = chunks[c].asIntBuffer();
+		}
+		scores = ByteBuffer.allocateDirect(aiCount * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+		offCenters = ByteBuffer.allocateDirect(aiCount * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+		clones = ByteBuffer.allocateDirect(aiCount);
+	}
+	
+	/**
+	 * @param line The index of a line of steps.
+	 * @return the index of the first step of that line within its chunk.
+	 */
+	int lineStart(int line)
+	{
+		return (line & chunkMask) * lineLength;
+	}
+	
+	@Override
+	public int get(int a, int step)
+	{
+		int line = geneMajor ? step : a;
+		return lines[line >>> chunkShift].get(lineStart(line) + (geneMajor ? a : step));
+	}
+	
+	@Override
+	public void set(int a, int step, int x)
+	{
+		int line = geneMajor ? step : a;
+		lines[line >>> chunkShift].put(lineStart(line) + (geneMajor ? a : step), x);
+	}
+	
+	@Override
+	public double score(int a)
+	{
+		return scores.get(a);
+	}
+	
+	@Override
+	public void setScore(int a, double score)
+	{
+		scores.put(a, score);
+	}
+	
+	@Override
+	public int offCenter(int a)
+	{
+		return offCenters.get(a);
+	}
+	
+	@Override
+	public void setOffCenter(int a, int count)
+	{
+		offCenters.put(a, count);
+	}
+	
+	@Override
+	public boolean isClone(int a)
+	{
+		return clones.get(a) != 0;
+	}
+	
+	@Override
+	public void setClone(int a, boolean clone)
+	{
+		clones.put(a, (byte) (clone ? 1 : 0));
+	}
+	
+	@Override
+	public void copyRow(int a, PopulationStore source, int row)
+	{
+		OffHeapPopulationStore store = (OffHeapPopulationStore) source;
+		if(geneMajor)
+		{
+			//the steps of an AI are spread over every line, so they are copied one at a time
+			for(int step = 0; step < steps; step++)
+			{
+				set(a, step, store.get(row, step));
+			}
+		}
+		else
+		{
+			lines[a >>> chunkShift].put(lineStart(a), store.lines[row >>> chunkShift], store.lineStart(row), steps);
+		}
+	}
+	
+	@Override
+	public void writeRow(int a, int[] steps)
+	{
+		if(geneMajor)
+		{
+			for(int step = 0; step < this.steps; step++)
+			{
+				set(a, step, steps[step]);
+			}
+		}
+		else
+		{
+			lines[a >>> chunkShift].put(lineStart(a), steps, 0, this.steps);
+		}
+	}
+	
+	@Override
+	public void readRow(int a, int[] steps, int offset)
+	{
+		if(geneMajor)
+		{
+			for(int step = 0; step < this.steps; step++)
+			{
+				steps[offset + step] = get(a, step);
+			}
+		}
+		else
+		{
+			lines[a >>> chunkShift].get(lineStart(a), steps, offset, this.steps);
+		}
+	}
+	
+	@Override
+	public void scoreAll(FitnessKernel kernel, int from, int to, int width)
+	{
+		if(!geneMajor)
+		{
+			for(int a = from; a < to; a++)
+			{
+				scores.put(a, kernel.doubledScore(chunks[a >>> chunkShift], lineStart(a), steps, width) / 2.0);
+			}
+			return;
+		}
+		
+		//a gene-major store is scored a whole line at a time without the kernel, adding each step to the running total
+		//	of every AI in the range. Each total is a whole number well below 2^53 until it is halved, so adding them up
+		//	as doubles is exact.
+		for(int a = from; a < to; a++)
+		{
+			scores.put(a, 0);
+		}
+		for(int step = 0; step < steps; step++)
+		{
+			IntBuffer line = lines[step >>> chunkShift];
+			int start = lineStart(step);
+			for(int a = from; a < to; a++)
+			{
+				scores.put(a, scores.get(a) + Math.abs(width - 2 * line.get(start + a)));
+			}
+		}
+		for(int a = from; a < to; a++)
+		{
+			scores.put(a, scores.get(a) / 2.0);
+		}
+	}
+	
+	@Override
+	public boolean isPerfect(int a, FitnessKernel kernel, int center)
+	{
+		if(geneMajor)
+		{
+			for(int step = 0; step < steps; step++)
+			{
+				if(get(a, step) != center)
+					return false;
+			}
+			return true;
+		}
+		return kernel.isPerfect(chunks[a >>> chunkShift], lineStart(a), steps, center);
+	}
+}
@@ -0,0 +1,99 @@
+package evolution;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Follows Rechenberg's 1/5th success rule: every {@code window} generations, if more than a fifth of them improved on
+ * the best score, the rate and tolerance grow, since the AI are close enough to the best to make bigger jumps 
+ * worthwhile. If less than a fifth did, they shrink, since most jumps overshoot. The rate and tolerance are scaled 
+ * together, so that a shrunken schedule builds AI with fewer, smaller changes.
+ */
+class OneFifthSchedule implements MutationSchedule
+{
+	/** The number of generations looked at before the scale changes when no window is given. */
+	static final int DEFAULT_WINDOW = 10;
+	/** The number the scale is multiplied by after a window with too few improvements. */
+	static final double SHRINK = 0.82;
+	/** The number the scale is multiplied by after a window with enough improvements. */
+	static final double GROW = 1 / SHRINK;
+	
+	/** The name this schedule was created with. */
+	final String name;
+	/** The number of generations looked at before the scale changes. */
+	final int window;
+	/** The scale of both the rate and the tolerance. */
+	double scale = 1;
+	/** The best score found so far. */
+	double best = Double.MAX_VALUE;
+	/** The number of generations of this window that improved on the best score. */
+	int successes;
+	/** The number of generations of this window so far. */
+	int generations;
+	
+	/**
+	 * @param name The name this schedule was created with.
+	 * @param window The number of generations looked at before the scale changes.
+	 */
+	OneFifthSchedule(String name, int window)
+	{
+		this.name = name;
+		this.window = window;
+	}
+	
+	@Override
+	public double rateScale()
+	{
+		return scale;
+	}
+	
+	@Override
+	public double toleranceScale()
+	{
+		return scale;
+	}
+	
+	@Override
+	public void generationFinished(int generation, double scoreOfBest)
+	{
+		if(scoreOfBest < best)
+		{
+			best = scoreOfBest;
+			successes++;
+		}
+		if(++generations == window)
+		{
+			//exactly a fifth keeps the scale as it is
+			if(successes * 5 > window)
+			{
+				scale = Math.min(1, scale * GROW);
+			}
+			else if(successes * 5 < window)
+			{
+				scale = Math.max(MIN_SCALE, scale * SHRINK);
+			}
+			successes = 0;
+			generations = 0;
+		}
+	}
+	
+	@Override
+	public void save(ByteBuffer state)
+	{
+		state.putDouble(scale).putDouble(best).putInt(successes).putInt(generations);
+	}
+	
+	@Override
+	public void restore(ByteBuffer state)
+	{
+		scale = state.getDouble();
+		best = state.getDouble();
+		successes = state.getInt();
+		generations = state.getInt();
+	}
+	
+	@Override
+	public String name()
+	{
+		return name;
+	}
+}
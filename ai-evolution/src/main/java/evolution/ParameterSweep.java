@@ -0,0 +1,698 @@
+package evolution;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many {@link EvolutionEngine}s with different parameters at the same time, each until it finds a perfect AI, and
+ * sums up how many generations and how long each set of parameters took. The sets of parameters are either every
+ * combination of a few values of each parameter (a grid) or a list read from a file.
+ * <p>
+ * Every run is built on a single thread, and the runs share a single work-stealing pool of {@link #PARALLELISM} threads,
+ * so a sweep never uses more cores than that however many runs it holds. A run does not keep a thread until it is
+ * done: it simulates a slice of {@link #SLICE} generations at a time and then queues itself behind every other run
+ * waiting for a thread, so a run that takes a long time to converge never holds up the runs behind it. The runs wait in
+ * a single queue of their own rather than in the queues of the pool, since the pool would run a task queued by one of
+ * its threads on that same thread first. At most
+ * {@link #ACTIVE} runs are started at once, since every started run keeps its generations in memory until it is done.
+ * </p>
+ * <p>
+ * Every run is seeded from {@link #SEED}, its configuration and its index within that configuration (see
+ * {@link EvolutionRandom#split(long, long)}), so a sweep with a given seed finds the same generation counts no matter
+ * how its runs were scheduled.
+ * </p>
+ */
+public class ParameterSweep
+{
+	/** Every configuration of the sweep, in the order they are reported. */
+	final List<Configuration> configurations;
+	/** The number of runs of every configuration, each with a seed of its own. */
+	int RUNS = 1;
+	/** The most threads the runs are built on at once. */
+	int PARALLELISM = Runtime.getRuntime().availableProcessors();
+	/** The most runs that are started but not yet done at once. */
+	int ACTIVE = 2 * Runtime.getRuntime().availableProcessors();
+	/** The number of generations a run simulates before it lets other runs have its thread. */
+	int SLICE = 100;
+	/** The most generations a run simulates before it is given up on, or 0 to run until a perfect AI is found. */
+	int MAX_GENERATIONS = 0;
+	/** The master seed of the sweep, which every run is seeded from. */
+	long SEED = ThreadLocalRandom.current().nextLong();
+	/** The selection strategy of every run (see {@link EvolutionEngine#SELECTION}). */
+	String SELECTION = "top-k";
+	/** The number of parents of every generation of every run (see {@link EvolutionEngine#PARENTS}). */
+	int PARENTS = 1;
+	/** The mutation schedule of every run (see {@link EvolutionEngine#SCHEDULE}). */
+	String SCHEDULE = "fixed";
+	
+	/** How to run {@link #main(String[])}. */
+	static final String USAGE = "Usage: java evolution.ParameterSweep [--width=<values>] [--height=<values>] "
+			+ "[--step-size=<values>] [--ai-count=<values>] [--ai-size=<values>] [--tolerance=<values>] "
+			+ "[--mutation-rate=<values>] [--configurations=<file>] [--runs=<count>] [--parallelism=<threads>] "
+			+ "[--active=<runs>] [--slice=<generations>] [--max-generations=<generations>] [--seed=<seed>] "
+			+ "[--selection=<name>] [--parents=<count>] [--schedule=<name>] [--output=<file>]";
+	
+	/**
+	 * Runs a sweep and prints a table of the results.
+	 * @param args Any of the options {@code --width}, {@code --height}, {@code --step-size}, {@code --ai-count},
+	 * {@code --ai-size}, {@code --tolerance} and {@code --mutation-rate}, each followed by "=" and a comma-separated list
+	 * of values, which sweep every combination of the values (the defaults of {@link EvolutionEngine#main(String[])} for
+	 * any not given, and the full width for the tolerance). {@code --configurations=<file>} reads the configurations
+	 * from a file instead (see {@link #read(Path)}). {@code --runs=<count>} runs every configuration that many times,
+	 * {@code --parallelism=<threads>} caps the number of threads, {@code --active=<runs>} the number of runs started at
+	 * once, {@code --slice=<generations>} sets the number of generations a run simulates at a time, and
+	 * {@code --max-generations=<generations>} gives up on runs that take longer. {@code --seed=<seed>} reproduces an
+	 * earlier sweep, {@code --selection}, {@code --parents} and {@code --schedule} are passed to every engine as in
+	 * {@link EvolutionEngine#main(String[])}, and {@code --output=<file>} also writes the results to that file as
+	 * comma-separated values.
+	 * @throws IOException Thrown if the configurations could not be read, or if the results could not be written.
+	 * @throws InterruptedException Thrown if the sweep is interrupted while waiting for its runs.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		List<Integer> widths = List.of(500);
+		List<Integer> heights = List.of(500);
+		List<Integer> stepSizes = List.of(5);
+		List<Integer> aiCounts = List.of(1000);
+		List<Integer> aiSizes = List.of(5);
+		List<Integer> tolerances = null;
+		List<Double> mutationRates = List.of(1.0 / 95.0);
+		Path configurationsPath = null;
+		Path outputPath = null;
+		ParameterSweep sweep = new ParameterSweep(new ArrayList<Configuration>());
+		//a value that is not a number is reported the same way as an option that does not exist
+		try
+		{
+			for(String arg: args)
+			{
+				int equals = arg.indexOf('=');
+				String option = equals < 0 ? arg : arg.substring(0, equals);
+				String value = equals < 0 ? "" : arg.substring(equals + 1);
+				switch(option)
+				{
+					case "--width":
+						widths = ints(value);
+						break;
+					case "--height":
+						heights = ints(value);
+						break;
+					case "--step-size":
+						stepSizes = ints(value);
+						break;
+					case "--ai-count":
+						aiCounts = ints(value);
+						break;
+					case "--ai-size":
+						aiSizes = ints(value);
+						break;
+					case "--tolerance":
+						tolerances = ints(value);
+						break;
+					case "--mutation-rate":
+						mutationRates = new ArrayList<Double>();
+						for(String rate: value.split(","))
+						{
+							mutationRates.add(Double.parseDouble(rate.trim()));
+						}
+						break;
+					case "--configurations":
+						configurationsPath = Paths.get(value);
+						break;
+					case "--runs":
+						sweep.RUNS = Integer.parseInt(value);
+						break;
+					case "--parallelism":
+						sweep.PARALLELISM = Integer.parseInt(value);
+						break;
+					case "--active":
+						sweep.ACTIVE = Integer.parseInt(value);
+						break;
+					case "--slice":
+						sweep.SLICE = Integer.parseInt(value);
+						break;
+					case "--max-generations":
+						sweep.MAX_GENERATIONS = Integer.parseInt(value);
+						break;
+					case "--seed":
+						sweep.SEED = Long.parseLong(value);
+						break;
+					case "--selection":
+						sweep.SELECTION = value;
+						break;
+					case "--parents":
+						sweep.PARENTS = Integer.parseInt(value);
+						break;
+					case "--schedule":
+						sweep.SCHEDULE = value;
+						break;
+					case "--output":
+						outputPath = Paths.get(value);
+						break;
+					default:
+						System.out.println(USAGE);
+						return;
+				}
+			}
+			
+		}
+		catch(NumberFormatException ex)
+		{
+			System.out.println(USAGE);
+			return;
+		}
+		
+		if(configurationsPath != null)
+		{
+			sweep.configurations.addAll(read(configurationsPath));
+		}
+		else
+		{
+			//every combination of the values, with the earlier parameters changing the slowest
+			for(int width: widths)
+			{
+				for(int height: heights)
+				{
+					for(int stepSize: stepSizes)
+					{
+						for(int aiCount: aiCounts)
+						{
+							for(int aiSize: aiSizes)
+							{
+								for(int tolerance: tolerances != null ? tolerances : List.of(width))
+								{
+									for(double mutationRate: mutationRates)
+									{
+										sweep.configurations.add(new Configuration(width, height, stepSize, aiCount,
+												aiSize, tolerance, mutationRate));
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		System.out.printf("Seed %d\n", sweep.SEED);
+		System.out.printf("Sweeping %d configurations, %d runs each, on %d threads\n", sweep.configurations.size(),
+				sweep.RUNS, sweep.PARALLELISM);
+		
+		long start = System.nanoTime();
+		Result[] results;
+		try
+		{
+			results = sweep.run();
+		}
+		catch(InputMismatchException ex)
+		{
+			System.out.println(ex.getMessage());
+			return;
+		}
+		System.out.printf("Finished in %d ms\n", (System.nanoTime() - start) / 1_000_000);
+		printTable(results, System.out);
+		if(outputPath != null)
+		{
+			writeCsv(results, outputPath);
+		}
+	}
+	
+	/**
+	 * @param configurations Every configuration of the sweep, in the order they are reported.
+	 */
+	public ParameterSweep(List<Configuration> configurations)
+	{
+		this.configurations = configurations;
+	}
+	
+	/**
+	 * Runs every configuration {@link #RUNS} times and waits for every run to finish.
+	 * @return the results of every configuration, in the same order as {@link #configurations}.
+	 * @throws InputMismatchException Thrown if any of the settings of the sweep or the parameters of any configuration
+	 * are out of range, including the selection, parents and schedule of every engine.
+	 * @throws InterruptedException Thrown if this thread is interrupted while waiting for the runs.
+	 * @throws RuntimeException Thrown if any run threw an exception, which stops every other run. An {@link Error} 
+	 * thrown by a run, such as an {@link OutOfMemoryError}, is thrown in the same way.
+	 */
+	public Result[] run() throws InputMismatchException, InterruptedException, RuntimeException
+	{
+		if(RUNS <= 0 || PARALLELISM <= 0 || ACTIVE <= 0 || SLICE <= 0 || MAX_GENERATIONS < 0)
+		{
+			throw new InputMismatchException("The runs, parallelism, active runs and slice must be greater than 0, and "
+					+ "the most generations must not be less than 0.");
+		}
+		
+		//every engine is created and checked up front, so that a configuration out of range fails before anything runs
+		Run[] runs = new Run[configurations.size() * RUNS];
+		for(int c = 0; c < configurations.size(); c++)
+		{
+			for(int r = 0; r < RUNS; r++)
+			{
+				int index = c * RUNS + r;
+				EvolutionEngine engine = configurations.get(c).engine();
+				engine.SEED = EvolutionRandom.split(SEED, index);
+				//the runs already fill every thread of the pool, so each run builds its generations on a single thread
+				engine.PARALLEL_SIMULATE = false;
+				engine.SELECTION = SELECTION;
+				engine.PARENTS = PARENTS;
+				engine.SCHEDULE = SCHEDULE;
+				try
+				{
+					engine.checkSettings();
+				}
+				catch(IllegalArgumentException ex)
+				{
+					throw new InputMismatchException(ex.getMessage());
+				}
+				runs[index] = new Run(engine);
+			}
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(PARALLELISM, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		Sweep sweep = new Sweep(pool, runs);
+		try
+		{
+			for(int i = 0; i < Math.min(ACTIVE, runs.length); i++)
+			{
+				sweep.startNext();
+			}
+			sweep.done.await();
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		//a run that ran out of memory or hit any other error ends the sweep with that error, as it would on this thread
+		if(sweep.failure instanceof Error)
+		{
+			throw (Error) sweep.failure;
+		}
+		if(sweep.failure != null)
+		{
+			throw (RuntimeException) sweep.failure;
+		}
+		
+		Result[] results = new Result[configurations.size()];
+		for(int c = 0; c < configurations.size(); c++)
+		{
+			results[c] = new Result(configurations.get(c), runs, c * RUNS, RUNS);
+		}
+		return results;
+	}
+	
+	/**
+	 * Prints a table of the results of a sweep, one line per configuration. Generations are counted over the runs that
+	 * found a perfect AI only, while the times are the mean over every run.
+	 * @param results The results of every configuration.
+	 * @param out Where the table is printed.
+	 */
+	static void printTable(Result[] results, PrintStream out)
+	{
+		out.println("Width  Height  Step  AI count  AI size  Tolerance  Mutation rate  Converged  Generations "
+				+ "(mean, min, max)  Wall (ms)  Busy (ms)");
+		for(Result result: results)
+		{
+			Configuration c = result.configuration;
+			out.printf("%-6d %-7d %-5d %-9d %-8d %-10d %-14.5f %-10s %-29s %-10.0f %.0f\n", c.width, c.height,
+					c.stepSize, c.aiCount, c.aiSize, c.tolerance, c.mutationRate, result.converged + "/" + result.runs,
+					result.converged == 0 ? "-" : String.format("%.1f, %d, %d", result.meanGenerations(),
+					result.minGenerations, result.maxGenerations), result.meanWallMillis(), result.meanBusyMillis());
+		}
+	}
+	
+	/**
+	 * Writes the results of a sweep to a file as comma-separated values, with a header line.
+	 * @param results The results of every configuration.
+	 * @param file The file to write, which is replaced if it exists.
+	 * @throws IOException Thrown if the file could not be written.
+	 */
+	static void writeCsv(Result[] results, Path file) throws IOException
+	{
+		try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(file)))
+		{
+			out.println("width,height,step_size,ai_count,ai_size,tolerance,mutation_rate,runs,converged,"
+					+ "mean_generations,min_generations,max_generations,mean_wall_ms,mean_busy_ms");
+			for(Result result: results)
+			{
+				Configuration c = result.configuration;
+				out.printf("%d,%d,%d,%d,%d,%d,%s,%d,%d,%s,%s,%s,%.3f,%.3f\n", c.width, c.height, c.stepSize, c.aiCount,
+						c.aiSize, c.tolerance, c.mutationRate, result.runs, result.converged,
+						result.converged == 0 ? "" : String.format("%.3f", result.meanGenerations()),
+						result.converged == 0 ? "" : result.minGenerations,
+						result.converged == 0 ? "" : result.maxGenerations, result.meanWallMillis(),
+						result.meanBusyMillis());
+			}
+		}
+	}
+	
+	/**
+	 * Reads a list of configurations from a file. Every line holds the {@code width height step_size ai_count ai_size
+	 * tolerance mutation_rate} of a configuration, separated by spaces, in the same order as the parameters of
+	 * {@link EvolutionEngine#main(String[])} without the view rate. Empty lines and lines starting with "#" are skipped.
+	 * @param file The file to read.
+	 * @return every configuration in the file, in order.
+	 * @throws IOException Thrown if the file could not be read, or if a line does not hold a configuration.
+	 */
+	static List<Configuration> read(Path file) throws IOException
+	{
+		List<Configuration> configurations = new ArrayList<Configuration>();
+		for(String line: Files.readAllLines(file))
+		{
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+			String[] values = line.split("\\s+");
+			try
+			{
+				if(values.length != 7)
+				{
+					throw new NumberFormatException("expected 7 values");
+				}
+				configurations.add(new Configuration(Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+						Integer.parseInt(values[2]), Integer.parseInt(values[3]), Integer.parseInt(values[4]),
+						Integer.parseInt(values[5]), Double.parseDouble(values[6])));
+			}
+			catch(NumberFormatException ex)
+			{
+				throw new IOException("The line \"" + line + "\" of " + file + " is not a configuration ("
+						+ ex.getMessage() + ").");
+			}
+		}
+		return configurations;
+	}
+	
+	/**
+	 * @param values A comma-separated list of ints.
+	 * @return every int in the list, in order.
+	 */
+	static List<Integer> ints(String values)
+	{
+		List<Integer> ints = new ArrayList<Integer>();
+		for(String value: values.split(","))
+		{
+			ints.add(Integer.parseInt(value.trim()));
+		}
+		return ints;
+	}
+	
+	/**
+	 * The parameters of a single configuration of a sweep, as they are passed to
+	 * {@link EvolutionEngine#EvolutionEngine(int, int, int, int, int, int, double)}.
+	 */
+	public static class Configuration
+	{
+		/** The width the AI are scored against. */
+		final int width;
+		/** The height the AI descend. */
+		final int height;
+		/** How far the AI travel per step in pixels. */
+		final int stepSize;
+		/** The number of AI per generation. */
+		final int aiCount;
+		/** The size of the AI. */
+		final int aiSize;
+		/** The horizontal distance the AI can travel each step. */
+		final int tolerance;
+		/** The rate at which mutation can occur. */
+		final double mutationRate;
+		
+		/**
+		 * @param width The width the AI are scored against.
+		 * @param height The height the AI descend.
+		 * @param stepSize How far the AI travel per step in pixels.
+		 * @param aiCount The number of AI per generation.
+		 * @param aiSize The size of the AI.
+		 * @param tolerance The horizontal distance the AI can travel each step.
+		 * @param mutationRate The rate at which mutation can occur.
+		 */
+		public Configuration(int width, int height, int stepSize, int aiCount, int aiSize, int tolerance,
+				double mutationRate)
+		{
+			this.width = width;
+			this.height = height;
+			this.stepSize = stepSize;
+			this.aiCount = aiCount;
+			this.aiSize = aiSize;
+			this.tolerance = tolerance;
+			this.mutationRate = mutationRate;
+		}
+		
+		/**
+		 * @return a new engine with these parameters.
+		 * @throws InputMismatchException Thrown if any of the parameters are out of range.
+		 */
+		EvolutionEngine engine() throws InputMismatchException
+		{
+			return new EvolutionEngine(width, height, stepSize, aiSize, aiCount, tolerance, mutationRate);
+		}
+	}
+	
+	/**
+	 * The results of every run of a single configuration.
+	 */
+	public static class Result
+	{
+		/** The configuration that was run. */
+		final Configuration configuration;
+		/** The number of runs. */
+		final int runs;
+		/** The number of runs that found a perfect AI within {@link ParameterSweep#MAX_GENERATIONS}. */
+		int converged;
+		/** The total number of generations of every run that found a perfect AI. */
+		long totalGenerations;
+		/** The fewest generations any run took to find a perfect AI. */
+		int minGenerations = Integer.MAX_VALUE;
+		/** The most generations any run took to find a perfect AI. */
+		int maxGenerations;
+		/** The total time in nanoseconds from the start to the end of every run, including time spent waiting. */
+		long totalWallNanos;
+		/** The total time in nanoseconds every run spent simulating. */
+		long totalBusyNanos;
+		
+		/**
+		 * Adds up the results of a range of runs.
+		 * @param configuration The configuration that was run.
+		 * @param runs Every run of the sweep.
+		 * @param from The index of the first run of this configuration.
+		 * @param count The number of runs of this configuration.
+		 */
+		Result(Configuration configuration, Run[] runs, int from, int count)
+		{
+			this.configuration = configuration;
+			this.runs = count;
+			for(int r = from; r < from + count; r++)
+			{
+				Run run = runs[r];
+				if(run.converged)
+				{
+					converged++;
+					totalGenerations += run.generations;
+					minGenerations = Math.min(minGenerations, run.generations);
+					maxGenerations = Math.max(maxGenerations, run.generations);
+				}
+				totalWallNanos += run.finished - run.started;
+				totalBusyNanos += run.busyNanos;
+			}
+		}
+		
+		/**
+		 * @return the mean number of generations the runs that found a perfect AI took.
+		 */
+		public double meanGenerations()
+		{
+			return (double) totalGenerations / Math.max(1, converged);
+		}
+		
+		/**
+		 * @return the mean time in milliseconds from the start to the end of a run, including time spent waiting for a
+		 * thread.
+		 */
+		public double meanWallMillis()
+		{
+			return totalWallNanos / 1e6 / runs;
+		}
+		
+		/**
+		 * @return the mean time in milliseconds a run spent simulating.
+		 */
+		public double meanBusyMillis()
+		{
+			return totalBusyNanos / 1e6 / runs;
+		}
+	}
+	
+	/**
+	 * A single run of a configuration, which simulates {@link ParameterSweep#SLICE} generations every time it is run
+	 * and queues itself again until it is done.
+	 */
+	class Run implements Runnable
+	{
+		/** The engine of this run, which is let go of once the run is done. */
+		EvolutionEngine engine;
+		/** The sweep this run belongs to, once it has been started. */
+		Sweep sweep;
+		/** The best AI found so far, or null if the run has not started. */
+		AIEv bestAI;
+		/** When the run started, from {@link System#nanoTime()}. */
+		long started;
+		/** When the run finished, from {@link System#nanoTime()}. */
+		long finished;
+		/** The time in nanoseconds this run has spent simulating. */
+		long busyNanos;
+		/** The number of generations this run simulated. */
+		int generations;
+		/** Whether or not this run found a perfect AI. */
+		boolean converged;
+		
+		/**
+		 * @param engine The engine of this run.
+		 */
+		Run(EvolutionEngine engine)
+		{
+			this.engine = engine;
+		}
+		
+		@Override
+		public void run()
+		{
+			try
+			{
+				long start = System.nanoTime();
+				if(bestAI == null)
+				{
+					started = start;
+					bestAI = engine.start();
+				}
+				//a run that is already perfect or out of generations is not simulated any further
+				int count = MAX_GENERATIONS > 0 ? Math.min(SLICE, MAX_GENERATIONS - engine.GEN_COUNTER) : SLICE;
+				if(!engine.isPerfect(bestAI) && count > 0)
+				{
+					bestAI = engine.simulate(bestAI, count, engine.TOLERANCE);
+				}
+				long end = System.nanoTime();
+				busyNanos += end - start;
+				
+				converged = engine.isPerfect(bestAI);
+				if(converged || (MAX_GENERATIONS > 0 && engine.GEN_COUNTER >= MAX_GENERATIONS))
+				{
+					finished = end;
+					generations = engine.GEN_COUNTER;
+					//the generations of a finished run are not needed any more
+					engine = null;
+					bestAI = null;
+					sweep.finished();
+				}
+				else
+				{
+					sweep.schedule(this);
+				}
+			}
+			catch(Throwable ex)
+			{
+				//the generations of this run are let go of first, since the error may well be running out of memory
+				engine = null;
+				bestAI = null;
+				sweep.failed(ex);
+			}
+		}
+	}
+	
+	/**
+	 * The state of a single call to {@link ParameterSweep#run()}, shared by all of its runs.
+	 */
+	class Sweep
+	{
+		/** The pool every run is run on. */
+		final ForkJoinPool pool;
+		/** Every run, in order. */
+		final Run[] runs;
+		/** 
+		 * The runs waiting for a thread, in the order they started waiting. Every run queued here has a task queued in
+		 * {@link #pool} that takes the run at the head of this queue, so whichever thread gets to a task, the run that 
+		 * has waited the longest goes first.
+		 */
+		final ConcurrentLinkedQueue<Run> ready = new ConcurrentLinkedQueue<Run>();
+		/** The index of the next run to be started. */
+		final AtomicInteger next = new AtomicInteger();
+		/** Counts down once for every run that is done, and all the way down once any run fails. */
+		final CountDownLatch done;
+		/** The first exception or error thrown by a run, which ends the sweep. */
+		volatile Throwable failure;
+		
+		/**
+		 * @param pool The pool every run is run on.
+		 * @param runs Every run, in order.
+		 */
+		Sweep(ForkJoinPool pool, Run[] runs)
+		{
+			this.pool = pool;
+			this.runs = runs;
+			done = new CountDownLatch(runs.length);
+		}
+		
+		/**
+		 * Starts the next run that has not been started yet, if there is one.
+		 */
+		void startNext()
+		{
+			int index = next.getAndIncrement();
+			if(index < runs.length)
+			{
+				runs[index].sweep = this;
+				schedule(runs[index]);
+			}
+		}
+		
+		/**
+		 * Queues a run behind every other run waiting for a thread.
+		 * @param run The run.
+		 */
+		void schedule(Run run)
+		{
+			ready.add(run);
+			pool.execute(() -> ready.poll().run());
+		}
+		
+		/**
+		 * Called by a run once it is done, which lets the next run start in its place.
+		 */
+		void finished()
+		{
+			done.countDown();
+			startNext();
+		}
+		
+		/**
+		 * Called by a run that has thrown an exception or error, which ends the sweep.
+		 * @param ex The exception or error.
+		 */
+		void failed(Throwable ex)
+		{
+			synchronized(this)
+			{
+				if(failure == null)
+				{
+					failure = ex;
+				}
+			}
+			//no run is started after a failure, so nothing is left to wait for
+			next.set(runs.length);
+			while(done.getCount() > 0)
+			{
+				done.countDown();
+			}
+		}
+	}
+}
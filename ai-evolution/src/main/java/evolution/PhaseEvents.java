@@ -0,0 +1,159 @@
+package evolution;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events of every phase of a generation, so that a recording shows how long each phase takes
+ * and how the time of a generation splits between them. None of them record a stack trace, and an event that is not
+ * being recorded costs no more than a check of a flag, so they can stay in place on production runs. The profile
+ * "evolution.jfc" next to this class records all of them (see {@link PhaseProfile}).
+ * <p>
+ * A parallel generation builds, scores and selects each chunk of the population on its own, so there is an
+ * {@link Offspring}, {@link Scoring} and {@link Selection} event per chunk and a single {@link Generation} event around
+ * them all. A generation with more than one parent also has a single {@link ParentSelection} event, after every chunk
+ * is done.
+ * </p>
+ */
+final class PhaseEvents
+{
+	/** The category every event is shown under. */
+	static final String CATEGORY = "AI Evolution";
+	
+	private PhaseEvents()
+	{
+	}
+	
+	/**
+	 * A whole generation, from building the first AI of it to publishing its best AI.
+	 */
+	@Name("evolution.Generation")
+	@Label("Generation")
+	@Category(CATEGORY)
+	@Description("A whole generation of the simulation")
+	@StackTrace(false)
+	static class Generation extends Event
+	{
+		@Label("Generation")
+		int generation;
+		@Label("AI Count")
+		int aiCount;
+		@Label("Steps")
+		int steps;
+		@Label("Mutations")
+		@Description("The number of steps mutated to a new x-value")
+		long mutations;
+		@Label("Clones")
+		@Description("The number of AI identical to their parent, which were never built or scored")
+		int clones;
+	}
+	
+	/**
+	 * Building the AI of a range of a generation from their parent. With incremental fitness every AI is scored as it
+	 * is built, from only the steps it mutated, so this includes the scoring.
+	 */
+	@Name("evolution.Offspring")
+	@Label("Offspring Creation")
+	@Category(CATEGORY)
+	@Description("Building a range of AI from their parent")
+	@StackTrace(false)
+	static class Offspring extends Event
+	{
+		@Label("Generation")
+		int generation;
+		@Label("AI Count")
+		int aiCount;
+		@Label("Steps")
+		int steps;
+		@Label("Mutations")
+		long mutations;
+		@Label("Clones")
+		int clones;
+		@Label("Incremental Fitness")
+		@Description("Whether every AI was scored as it was built")
+		boolean incremental;
+	}
+	
+	/**
+	 * Scoring a range of a generation from scratch with the {@link FitnessKernel}. Only recorded when incremental fitness
+	 * is off, since otherwise every AI is scored by {@link Offspring}.
+	 */
+	@Name("evolution.Scoring")
+	@Label("Fitness Scoring")
+	@Category(CATEGORY)
+	@Description("Scoring a range of AI from scratch")
+	@StackTrace(false)
+	static class Scoring extends Event
+	{
+		@Label("Generation")
+		int generation;
+		@Label("AI Count")
+		int aiCount;
+		@Label("Steps")
+		int steps;
+		@Label("Kernel")
+		String kernel;
+	}
+	
+	/**
+	 * Finding the best AI of a range of a generation.
+	 */
+	@Name("evolution.Selection")
+	@Label("Best Selection")
+	@Category(CATEGORY)
+	@Description("Finding the best AI of a range")
+	@StackTrace(false)
+	static class Selection extends Event
+	{
+		@Label("Generation")
+		int generation;
+		@Label("AI Count")
+		int aiCount;
+	}
+	
+	/**
+	 * Picking the parents of the next generation from a whole generation once it is built, by the 
+	 * {@link SelectionStrategy}. Only recorded with more than one parent, since a single parent is the best AI, which 
+	 * every {@link Selection} has already found.
+	 */
+	@Name("evolution.ParentSelection")
+	@Label("Parent Selection")
+	@Category(CATEGORY)
+	@Description("Picking the parents of the next generation")
+	@StackTrace(false)
+	static class ParentSelection extends Event
+	{
+		@Label("Generation")
+		int generation;
+		@Label("AI Count")
+		int aiCount;
+		@Label("Parents")
+		int parents;
+		@Label("Strategy")
+		String strategy;
+	}
+	
+	/**
+	 * Drawing a frame of {@link AI_Evolution}: either one step of every AI of a generation, or every step of the best AI.
+	 */
+	@Name("evolution.Render")
+	@Label("Rendering")
+	@Category(CATEGORY)
+	@Description("Drawing a frame of the simulation")
+	@StackTrace(false)
+	static class Render extends Event
+	{
+		@Label("Generation")
+		int generation;
+		@Label("AI Count")
+		@Description("The number of AI drawn")
+		int aiCount;
+		@Label("Steps")
+		@Description("The number of steps drawn of each AI")
+		int steps;
+	}
+}
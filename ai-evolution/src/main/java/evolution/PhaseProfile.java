@@ -0,0 +1,157 @@
+package evolution;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Records the {@link PhaseEvents} of a run with the bundled profile "evolution.jfc" and prints a latency histogram of
+ * every phase once the run is over. A recording made any other way, such as with
+ * {@code -XX:StartFlightRecording:settings=evolution.jfc}, can be summed up by {@link #main(String[])} instead.
+ */
+class PhaseProfile implements AutoCloseable
+{
+	/** The name of the profile, which sits next to this class. */
+	static final String PROFILE = "evolution.jfc";
+	/** The prefix of the name of every {@link PhaseEvents} event. */
+	static final String PREFIX = "evolution.";
+	/** The number of buckets in each histogram. Bucket {@code b} holds the durations from 2^(b - 1) up to 2^b us. */
+	static final int BUCKETS = 24;
+	/** The widest bar drawn in a histogram. */
+	static final int BAR_WIDTH = 50;
+	
+	/** The file the recording is written to. */
+	final Path file;
+	/** The recording of the run. */
+	final Recording recording;
+	
+	/**
+	 * Starts recording with the bundled profile.
+	 * @param file The file the recording is written to once it is closed.
+	 * @throws IOException Thrown if the profile could not be read or the file could not be written to.
+	 */
+	PhaseProfile(Path file) throws IOException
+	{
+		this.file = file;
+		try(Reader reader = new InputStreamReader(PhaseProfile.class.getResourceAsStream(PROFILE), 
+				StandardCharsets.UTF_8))
+		{
+			recording = new Recording(Configuration.create(reader));
+		}
+		catch(ParseException ex)
+		{
+			throw new IOException("The profile " + PROFILE + " could not be read.", ex);
+		}
+		recording.setName("AI Evolution");
+		recording.setToDisk(true);
+		recording.setDestination(file);
+		recording.start();
+	}
+	
+	/**
+	 * Stops recording and writes the recording to {@link #file}.
+	 */
+	@Override
+	public void close()
+	{
+		recording.stop();
+		recording.close();
+	}
+	
+	/**
+	 * Prints a latency histogram of every phase recorded in a recording.
+	 * @param args The recording to sum up.
+	 * @throws IOException Thrown if the recording could not be read.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length != 1)
+		{
+			System.out.println("Usage: java evolution.PhaseProfile recording.jfr");
+			return;
+		}
+		printHistograms(Paths.get(args[0]), System.out);
+	}
+	
+	/**
+	 * Prints the number, mean, percentiles and a histogram of the durations of every kind of {@link PhaseEvents} event 
+	 * in a recording. Events are told apart by their label, so every kind of event needs a label of its own, such as
+	 * "Best Selection" and "Parent Selection".
+	 * @param file The recording.
+	 * @param out Where the histograms are printed.
+	 * @throws IOException Thrown if the recording could not be read.
+	 */
+	static void printHistograms(Path file, PrintStream out) throws IOException
+	{
+		//the durations of every phase in nanoseconds, by the label of the phase
+		Map<String, List<Long>> phases = new TreeMap<>();
+		try(RecordingFile recording = new RecordingFile(file))
+		{
+			while(recording.hasMoreEvents())
+			{
+				RecordedEvent event = recording.readEvent();
+				if(event.getEventType().getName().startsWith(PREFIX))
+				{
+					phases.computeIfAbsent(event.getEventType().getLabel(), label -> new ArrayList<>())
+							.add(event.getDuration().toNanos());
+				}
+			}
+		}
+		
+		if(phases.isEmpty())
+		{
+			out.println("No phases were recorded.");
+			return;
+		}
+		for(Map.Entry<String, List<Long>> phase: phases.entrySet())
+		{
+			long[] nanos = phase.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+			out.printf("%s: %d events, mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us\n", 
+					phase.getKey(), nanos.length, Arrays.stream(nanos).average().orElse(0) / 1000, 
+					percentile(nanos, 0.5) / 1000.0, percentile(nanos, 0.9) / 1000.0, percentile(nanos, 0.99) / 1000.0,
+					nanos[nanos.length - 1] / 1000.0);
+			
+			//durations are bucketed by the power of 2 of their microseconds, so that one histogram covers phases of 
+			//	nanoseconds and of seconds alike
+			int[] buckets = new int[BUCKETS];
+			for(long duration: nanos)
+			{
+				long micros = duration / 1000;
+				buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros))]++;
+			}
+			int most = Arrays.stream(buckets).max().getAsInt();
+			for(int b = 0; b < BUCKETS; b++)
+			{
+				if(buckets[b] > 0)
+				{
+					out.printf("  %10s us  %-" + BAR_WIDTH + "s %d\n", b == 0 ? "< 1" : "< " + (1L << b), 
+							"#".repeat(Math.max(1, buckets[b] * BAR_WIDTH / most)), buckets[b]);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @param sorted Durations in ascending order.
+	 * @param fraction The fraction of durations that are at most the percentile.
+	 * @return the smallest duration that at least {@code fraction} of the durations are at most.
+	 */
+	static long percentile(long[] sorted, double fraction)
+	{
+		return sorted[Math.max(0, (int) Math.ceil(fraction * sorted.length) - 1)];
+	}
+}
@@ -0,0 +1,346 @@
+package evolution;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * The memory every generation of an {@link EvolutionEngine} is built in. Rather than a new AI object with a new array
+ * for every AI of every generation, the arena holds two {@link PopulationStore}s of {@code aiCount * steps} steps, one 
+ * for the current generation and one for the next. Each generation is written in place over the generation before the 
+ * current one, and the two stores are swapped once it is done, so after the first generation building a generation 
+ * allocates nothing.
+ * <p>
+ * Row {@code a} of a store holds the steps of AI {@code a}. Every generation is built from {@code k} parents picked 
+ * from the generation before it by a {@link SelectionStrategy}, and its last {@code k} rows hold a copy of each parent,
+ * so that the parents compete with the AI based on them. Every other AI {@code a} is based on parent {@code a % k}. An
+ * AI that turns out to be identical to its parent is never copied; its row is only marked as a clone, and reads of it 
+ * are redirected to the parent's row.
+ * </p>
+ */
+class PopulationArena
+{
+	/** The number of AI per generation. */
+	final int aiCount;
+	/** The number of steps each AI takes. */
+	final int steps;
+	/** The name of the kind of {@link PopulationStore} both generations are kept in. */
+	final String store;
+	/** The steps, scores and clones of every AI of the current generation. */
+	PopulationStore current;
+	/** The store the next generation is built in. */
+	PopulationStore next;
+	/** Picks the parents of every generation from the generation before it. */
+	final SelectionStrategy strategy;
+	/** 
+	 * The indexes of the AI of the current generation the next generation is built from, best first. An index may 
+	 * appear more than once.
+	 */
+	int[] parents;
+	/** The indexes of the AI of the next generation the generation after it is built from, once they are picked. */
+	int[] pool;
+	/** 
+	 * Whether or not the parents of the next generation were picked from a generation built in this arena, or restored
+	 * from a checkpoint, rather than being a single parent set from outside.
+	 */
+	boolean built;
+	
+	/**
+	 * Allocates both stores.
+	 * @param aiCount The number of AI per generation.
+	 * @param steps The number of steps each AI takes.
+	 * @param store The name of the kind of store to keep both generations in (see 
+	 * {@link PopulationStore#named(String, int, int)}).
+	 * @param parentCount The number of parents every generation is built from.
+	 * @param selection The name of the strategy that picks the parents (see 
+	 * {@link SelectionStrategy#named(String, int)}).
+	 * @throws IllegalArgumentException Thrown if there is no store or strategy with the given name, if the population is 
+	 * too large for the store, or if the number of parents is not at least 1 and less than the number of AI.
+	 */
+	PopulationArena(int aiCount, int steps, String store, int parentCount, String selection) 
+			throws IllegalArgumentException
+	{
+		if(parentCount < 1 || parentCount >= aiCount)
+		{
+			throw new IllegalArgumentException("The number of parents must be at least 1 and less than the AI count.");
+		}
+		this.aiCount = aiCount;
+		this.steps = steps;
+		this.store = store;
+		strategy = SelectionStrategy.named(selection, aiCount);
+		parents = new int[parentCount];
+		pool = new int[parentCount];
+		current = PopulationStore.named(store, aiCount, steps);
+		next = PopulationStore.named(store, aiCount, steps);
+	}
+	
+	/**
+	 * Makes an AI every parent of the next generation, by copying it into the last row of the current generation.
+	 * @param ai The AI to become the parent. It must already be scored.
+	 * @param center The x-value every step of a perfect AI lands on.
+	 */
+	void setParent(AIEv ai, int center)
+	{
+		int last = aiCount - 1;
+		write(last, ai, center);
+		Arrays.fill(parents, last);
+		built = false;
+	}
+	
+	/**
+	 * Makes a set of AI the parents of the next generation, as if they had been picked from the current generation by
+	 * {@link #selectParents(int, long, int, int)}, by copying each into one of the last rows of the current generation.
+	 * @param ais The parents, best first, one for every parent of the next generation. They must already be scored.
+	 * @param center The x-value every step of a perfect AI lands on.
+	 */
+	void setParents(AIEv[] ais, int center)
+	{
+		for(int j = 0; j < parents.length; j++)
+		{
+			write(firstKept() + j, ais[j], center);
+			parents[j] = firstKept() + j;
+		}
+		built = true;
+	}
+	
+	/**
+	 * Copies an AI into a row of the current generation.
+	 * @param a The index of the row.
+	 * @param ai The AI to copy. It must already be scored.
+	 * @param center The x-value every step of a perfect AI lands on.
+	 */
+	void write(int a, AIEv ai, int center)
+	{
+		current.writeRow(a, ai.steps);
+		current.setScore(a, ai.score);
+		//every AI built from here on keeps count of its off-center steps as it is built, so this is the only full count
+		int offCenter = ai.offCenter;
+		if(offCenter < 0)
+		{
+			offCenter = 0;
+			for(int x: ai.steps)
+			{
+				offCenter += x != center ? 1 : 0;
+			}
+		}
+		current.setOffCenter(a, offCenter);
+		current.setClone(a, false);
+	}
+	
+	/**
+	 * Checks whether an AI is already the best parent of the next generation, as it is when it was returned by the last 
+	 * batch built in this arena. The other parents of such a batch are still in the arena, so the next batch can carry on
+	 * from all of them instead of only the best.
+	 * @param ai An AI. It must already be scored.
+	 * @return <b>{@code true}</b> if the current generation was built in this arena and its best parent has the same 
+	 * score and steps as {@code ai}. Otherwise, <b>{@code false}</b>.
+	 */
+	boolean isParent(AIEv ai)
+	{
+		if(!built || ai.steps.length != steps || current.score(parents[0]) != ai.score)
+		{
+			return false;
+		}
+		int row = row(parents[0]);
+		for(int step = 0; step < steps; step++)
+		{
+			if(current.get(row, step) != ai.steps[step])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @param j The index of a parent, from 0 up to the number of parents.
+	 * @return the score of that parent of the next generation.
+	 */
+	double parentScore(int j)
+	{
+		return current.score(parents[j]);
+	}
+	
+	/**
+	 * @param a The index of an AI of the next generation that is not a copy of a parent.
+	 * @return the index of the parent that AI is built from.
+	 */
+	int parentOf(int a)
+	{
+		return a % parents.length;
+	}
+	
+	/**
+	 * @return the index of the first row of the next generation that holds a copy of a parent rather than a new AI.
+	 */
+	int firstKept()
+	{
+		return aiCount - parents.length;
+	}
+	
+	/**
+	 * Copies a parent into its row near the end of the next generation, so that it competes with the AI based on it.
+	 * @param j The index of the parent, from 0 up to the number of parents.
+	 * @return the score of the parent.
+	 */
+	double keepParent(int j)
+	{
+		int kept = firstKept() + j;
+		next.copyRow(kept, current, row(parents[j]));
+		next.setClone(kept, false);
+		next.setScore(kept, parentScore(j));
+		next.setOffCenter(kept, current.offCenter(parents[j]));
+		return parentScore(j);
+	}
+	
+	/**
+	 * Builds a single AI of the next generation from its parent, in the same way as
+	 * {@link AIEv#mutate(AIEv, int, int, double, RandomGenerator)} would and using the same random numbers. The AI is
+	 * scored as it is built, by applying the change of every mutated step to the parent's score, and its off-center 
+	 * count is kept up to date in the same way.
+	 * @param a The row of the next generation to build.
+	 * @param center The center the AI are scored against.
+	 * @param frameWidth The largest x-value a step can have.
+	 * @param tolerance The distance horizontally that the AI can move in one step.
+	 * @param logOfNoMutation The logarithm of the chance of a step not mutating (see
+	 * {@link AIEv#logOfNoMutation(double)}).
+	 * @param random The random number generator the AI is built from.
+	 * @return the number of steps that changed, which is 0 if the AI is a clone.
+	 */
+	int buildChild(int a, double center, int frameWidth, int tolerance, double logOfNoMutation,
+			RandomGenerator random)
+	{
+		int j = parentOf(a);
+		double score = parentScore(j);
+		int offCenter = current.offCenter(parents[j]);
+		//a perfect step lands on the center rounded down, as in EvolutionEngine.isPerfect(AIEv)
+		int target = (int) center;
+		double m = AIEv.nextMutation(-1, logOfNoMutation, random);
+		
+		//a clone is never copied, since its steps are the parent's steps, which are kept near the end of the generation
+		if(m >= steps)
+		{
+			next.setClone(a, true);
+			next.setScore(a, score);
+			next.setOffCenter(a, offCenter);
+			return 0;
+		}
+		
+		next.copyRow(a, current, row(parents[j]));
+		int changed = 0;
+		for(; m < steps; m = AIEv.nextMutation(m, logOfNoMutation, random))
+		{
+			int step = (int) m;
+			int num = next.get(a, step);
+			int newStep = AIEv.mutatedStep(num, frameWidth, tolerance, random);
+			if(newStep != num)
+			{
+				next.set(a, step, newStep);
+				score += Math.abs(center - newStep) - Math.abs(center - num);
+				offCenter += (newStep != target ? 1 : 0) - (num != target ? 1 : 0);
+				changed++;
+			}
+		}
+		
+		//every mutation landed where it already was, which makes this a clone after all
+		next.setClone(a, changed == 0);
+		next.setScore(a, score);
+		next.setOffCenter(a, offCenter);
+		return changed;
+	}
+	
+	/**
+	 * Picks the parents of the generation after the next one from the next generation, which must be fully built and
+	 * scored.
+	 * @param indexOfBest The index of the best AI of the next generation, which is always the first parent.
+	 * @param seed The master seed of the run.
+	 * @param generation The generation that was just built.
+	 * @param chunk The largest number of AI handed to a single task at a time (see 
+	 * {@link SelectionStrategy#select(PopulationStore, int[], long, int, int)}).
+	 */
+	void selectParents(int indexOfBest, long seed, int generation, int chunk)
+	{
+		pool[0] = indexOfBest;
+		if(pool.length > 1)
+		{
+			strategy.select(next, pool, seed, generation, chunk);
+		}
+	}
+	
+	/**
+	 * Makes the next generation the current generation, and the parents picked from it by 
+	 * {@link #selectParents(int, long, int, int)} the parents of the generation after it.
+	 */
+	void swap()
+	{
+		PopulationStore store = current;
+		current = next;
+		next = store;
+		int[] picked = pool;
+		pool = parents;
+		parents = picked;
+		built = true;
+	}
+	
+	/**
+	 * @param a The index of an AI of the current generation.
+	 * @return the row that holds the steps of that AI, which is the row its parent was kept in if it is a clone.
+	 */
+	int row(int a)
+	{
+		return current.isClone(a) ? firstKept() + parentOf(a) : a;
+	}
+	
+	/**
+	 * @param a The index of an AI of the current generation.
+	 * @param step The index of the step.
+	 * @return the horizontal placement (x-value) of that step of that AI.
+	 */
+	int get(int a, int step)
+	{
+		return current.get(row(a), step);
+	}
+	
+	/**
+	 * @param a The index of an AI of the current generation.
+	 * @return the score of that AI.
+	 */
+	double score(int a)
+	{
+		return current.score(a);
+	}
+	
+	/**
+	 * @param a The index of an AI of the current generation.
+	 * @return <b>{@code true}</b> if every step of that AI lands on the center, going by the off-center count kept as it
+	 * was built. Otherwise, <b>{@code false}</b>.
+	 */
+	boolean isPerfect(int a)
+	{
+		return current.offCenter(a) == 0;
+	}
+	
+	/**
+	 * @param a The index of an AI of the current generation.
+	 * @param kernel The kernel that checks the steps.
+	 * @param center The x-value every step of a perfect AI lands on.
+	 * @return <b>{@code true}</b> if every step of that AI lands on {@code center}. Otherwise, <b>{@code false}</b>.
+	 */
+	boolean isPerfect(int a, FitnessKernel kernel, int center)
+	{
+		return current.isPerfect(row(a), kernel, center);
+	}
+	
+	/**
+	 * Copies an AI of the current generation out of the arena, so that it is kept once its slab is reused.
+	 * @param a The index of an AI of the current generation.
+	 * @return a new AI with the same steps, score and off-center count.
+	 */
+	AIEv copy(int a)
+	{
+		int[] copy = new int[steps];
+		current.readRow(row(a), copy, 0);
+		AIEv ai = new AIEv(copy, current.score(a));
+		ai.offCenter = current.offCenter(a);
+		return ai;
+	}
+}
@@ -0,0 +1,128 @@
+package evolution;
+
+/**
+ * Holds a single generation of a {@link PopulationArena}: the steps, score, off-center count and clone flag of every AI
+ * in it. The arena
+ * keeps two stores of the same kind, one for the current generation and one for the next, and only ever reaches the
+ * steps through this interface, so where and how they are laid out in memory is up to the store.
+ * <p>
+ * {@link HeapPopulationStore} keeps everything in arrays on the heap. {@link OffHeapPopulationStore} keeps everything in
+ * direct buffers outside of the heap, either one AI after another or one step after another, so that populations too
+ * large for a single array can be run without the garbage collector ever having to look at them.
+ * </p>
+ */
+interface PopulationStore
+{
+	/**
+	 * @param a The index of an AI.
+	 * @param step The index of the step.
+	 * @return the horizontal placement (x-value) of that step of that AI.
+	 */
+	int get(int a, int step);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @param step The index of the step.
+	 * @param x The new horizontal placement (x-value) of that step of that AI.
+	 */
+	void set(int a, int step, int x);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @return the score of that AI.
+	 */
+	double score(int a);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @param score The new score of that AI.
+	 */
+	void setScore(int a, double score);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @return the number of steps of that AI that do not land on the center, which is 0 for a perfect AI.
+	 */
+	int offCenter(int a);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @param count The new number of steps of that AI that do not land on the center.
+	 */
+	void setOffCenter(int a, int count);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @return whether or not that AI is a clone of its parent.
+	 */
+	boolean isClone(int a);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @param clone Whether or not that AI is a clone of its parent.
+	 */
+	void setClone(int a, boolean clone);
+	
+	/**
+	 * Copies every step of an AI of another store of the same kind into this store.
+	 * @param a The index of the AI to be written over.
+	 * @param source The store to copy from.
+	 * @param row The index of the AI to copy within {@code source}.
+	 */
+	void copyRow(int a, PopulationStore source, int row);
+	
+	/**
+	 * @param a The index of the AI to be written over.
+	 * @param steps Every step of the AI, which are copied into this store.
+	 */
+	void writeRow(int a, int[] steps);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @param steps The array every step of the AI is copied into.
+	 * @param offset The index within {@code steps} the first step is copied to.
+	 */
+	void readRow(int a, int[] steps, int offset);
+	
+	/**
+	 * Scores many AI from scratch, writing each score into this store.
+	 * @param kernel The kernel that works out the fitness function.
+	 * @param from The first AI (inclusive) to be scored.
+	 * @param to The last AI (exclusive) to be scored.
+	 * @param width The width the AI are scored against.
+	 */
+	void scoreAll(FitnessKernel kernel, int from, int to, int width);
+	
+	/**
+	 * @param a The index of an AI.
+	 * @param kernel The kernel that checks the steps.
+	 * @param center The x-value every step of a perfect AI lands on.
+	 * @return <b>{@code true}</b> if every step of that AI lands on {@code center}. Otherwise, <b>{@code false}</b>.
+	 */
+	boolean isPerfect(int a, FitnessKernel kernel, int center);
+	
+	/**
+	 * Finds a kind of store by name.
+	 * @param name Either "heap", "agent-major" (off the heap, one AI after another) or "gene-major" (off the heap, one
+	 * step after another).
+	 * @param aiCount The number of AI per generation.
+	 * @param steps The number of steps each AI takes.
+	 * @return a new store of the given kind.
+	 * @throws IllegalArgumentException Thrown if there is no store with the given name, or if the population is too
+	 * large for it.
+	 */
+	static PopulationStore named(String name, int aiCount, int steps) throws IllegalArgumentException
+	{
+		switch(name)
+		{
+			case "heap":
+				return new HeapPopulationStore(aiCount, steps);
+			case "agent-major":
+				return new OffHeapPopulationStore(aiCount, steps, false);
+			case "gene-major":
+				return new OffHeapPopulationStore(aiCount, steps, true);
+			default:
+				throw new IllegalArgumentException("There is no population store named " + name + ".");
+		}
+	}
+}
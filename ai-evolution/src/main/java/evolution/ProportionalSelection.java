@@ -0,0 +1,230 @@
+package evolution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Picks parents with a chance that grows the better they are, which is fitness-proportional (roulette wheel) selection.
+ * The weight of an AI is how much better its doubled score is than the worst doubled score of the generation, plus 1, so
+ * every AI has a chance and the best has the largest. The parents are picked by stochastic universal sampling: a single
+ * random number places evenly spaced pointers along the wheel, which picks every parent in one pass over the 
+ * generation and never picks an AI far more or less often than its weight says.
+ * <p>
+ * Every weight is an integer, so the wheel adds up to exactly the same total no matter in what order it is added up. A
+ * parallel selection adds up the weight of every chunk at once, then walks every chunk at once, each picking the 
+ * parents whose pointers land on it.
+ * </p>
+ */
+class ProportionalSelection implements SelectionStrategy
+{
+	/** The name this strategy was created with. */
+	final String name;
+	/** The number of AI per generation. */
+	final int aiCount;
+	/** The worst doubled score of every chunk. */
+	long[] worsts = new long[1];
+	/** The sum of the doubled scores of every chunk. */
+	long[] sums = new long[1];
+	
+	/**
+	 * @param name The name this strategy was created with.
+	 * @param aiCount The number of AI per generation.
+	 */
+	ProportionalSelection(String name, int aiCount)
+	{
+		this.name = name;
+		this.aiCount = aiCount;
+	}
+	
+	@Override
+	public void select(PopulationStore generation, int[] parents, long seed, int gen, int chunk)
+	{
+		int pointers = parents.length - 1;
+		if(pointers == 0)
+		{
+			return;
+		}
+		
+		chunk = Math.min(chunk, aiCount);
+		int chunks = (aiCount + chunk - 1) / chunk;
+		if(worsts.length != chunks)
+		{
+			worsts = new long[chunks];
+			sums = new long[chunks];
+		}
+		Wheel wheel = new Wheel(generation, chunk);
+		
+		//first the worst score, which every weight is measured from
+		run(wheel, chunks, false);
+		long worst = 0;
+		for(int c = 0; c < chunks; c++)
+		{
+			worst = Math.max(worst, worsts[c]);
+		}
+		wheel.worst = worst;
+		wheel.total = (long) aiCount * (worst + 1);
+		for(int c = 0; c < chunks; c++)
+		{
+			wheel.total -= sums[c];
+		}
+		
+		//then the pointers, which are spaced total / pointers apart from a random start
+		wheel.parents = parents;
+		wheel.pointers = pointers;
+		wheel.start = EvolutionRandom.forThread().reseed(seed, gen, aiCount).nextLong(wheel.total);
+		run(wheel, chunks, true);
+	}
+	
+	@Override
+	public String name()
+	{
+		return name;
+	}
+	
+	/**
+	 * Runs one pass of the wheel over every chunk, on the calling thread if there is only one chunk.
+	 * @param wheel The wheel.
+	 * @param chunks The number of chunks.
+	 * @param pick Whether to pick the parents (true) or to add up the scores of every chunk (false).
+	 */
+	void run(Wheel wheel, int chunks, boolean pick)
+	{
+		if(chunks == 1)
+		{
+			wheel.pass(0, pick);
+		}
+		else
+		{
+			ForkJoinPool.commonPool().invoke(new ChunkTask(wheel, 0, chunks, pick));
+		}
+	}
+	
+	/**
+	 * The state of a single selection, shared by every chunk of it.
+	 */
+	class Wheel
+	{
+		/** The generation the parents are picked from. */
+		final PopulationStore generation;
+		/** The number of AI in every chunk but the last. */
+		final int chunk;
+		/** The worst doubled score of the generation. */
+		long worst;
+		/** The sum of the weights of every AI. */
+		long total;
+		/** Where the first pointer lands, from 0 up to {@link #total}. */
+		long start;
+		/** The number of pointers, one for every parent picked. */
+		int pointers;
+		/** The indexes of the parents, filled in from index 1 on. */
+		int[] parents;
+		
+		/**
+		 * @param generation The generation the parents are picked from.
+		 * @param chunk The number of AI in every chunk but the last.
+		 */
+		Wheel(PopulationStore generation, int chunk)
+		{
+			this.generation = generation;
+			this.chunk = chunk;
+		}
+		
+		/**
+		 * @param i The index of a pointer.
+		 * @return where on the wheel that pointer lands.
+		 */
+		long pointer(int i)
+		{
+			return (start + i * total) / pointers;
+		}
+		
+		/**
+		 * Runs one pass of the wheel over a single chunk.
+		 * @param c The index of the chunk.
+		 * @param pick Whether to pick the parents whose pointers land on this chunk (true) or to add up its scores 
+		 * (false).
+		 */
+		void pass(int c, boolean pick)
+		{
+			int from = c * chunk;
+			int to = Math.min(aiCount, from + chunk);
+			if(!pick)
+			{
+				long chunkWorst = 0;
+				long sum = 0;
+				for(int a = from; a < to; a++)
+				{
+					long score = (long) (generation.score(a) * 2);
+					chunkWorst = Math.max(chunkWorst, score);
+					sum += score;
+				}
+				worsts[c] = chunkWorst;
+				sums[c] = sum;
+				return;
+			}
+			
+			//where this chunk starts on the wheel, from the sums of the chunks before it
+			long offset = 0;
+			for(int before = 0; before < c; before++)
+			{
+				offset += (long) chunk * (worst + 1) - sums[before];
+			}
+			//the first pointer at or past the start of this chunk, which is the first i with start + i * total at least
+			//	offset * pointers
+			long behind = offset * pointers - start;
+			int i = behind <= 0 ? 0 : (int) Math.min(pointers, (behind + total - 1) / total);
+			
+			for(int a = from; a < to && i < pointers; a++)
+			{
+				offset += worst + 1 - (long) (generation.score(a) * 2);
+				for(; i < pointers && pointer(i) < offset; i++)
+				{
+					parents[i + 1] = a;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Runs one pass of a wheel over a range of chunks, splitting the range in half until a single chunk is left.
+	 */
+	private class ChunkTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		/** The wheel. */
+		final Wheel wheel;
+		/** The first chunk (inclusive) handled by this task. */
+		final int from;
+		/** The last chunk (exclusive) handled by this task. */
+		final int to;
+		/** Whether to pick the parents (true) or to add up the scores of every chunk (false). */
+		final boolean pick;
+		
+		/**
+		 * @param wheel The wheel.
+		 * @param from The first chunk (inclusive) to handle.
+		 * @param to The last chunk (exclusive) to handle.
+		 * @param pick Whether to pick the parents (true) or to add up the scores of every chunk (false).
+		 */
+		ChunkTask(Wheel wheel, int from, int to, boolean pick)
+		{
+			this.wheel = wheel;
+			this.from = from;
+			this.to = to;
+			this.pick = pick;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if(to - from == 1)
+			{
+				wheel.pass(from, pick);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new ChunkTask(wheel, from, mid, pick), new ChunkTask(wheel, mid, to, pick));
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package evolution;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws frames on a thread of its own at a capped frame rate, so that drawing never slows down the evolution it shows.
+ * Between frames the thread is parked by a {@link ScheduledExecutorService} rather than spinning. When a frame takes
+ * longer than the frame period, the frames that fell behind are dropped instead of being drawn back to back to catch
+ * up.
+ */
+class RenderLoop
+{
+	/** The time between two frames in nanoseconds. */
+	final long periodNanos;
+	/** Draws a single frame. Only ever run by the thread of {@link #scheduler}. */
+	final Runnable drawFrame;
+	/** The thread that frames are drawn on. */
+	final ScheduledExecutorService scheduler;
+	/** The time the next frame is due at, according to {@link System#nanoTime()}. */
+	long nextFrame;
+	/** The number of frames that were dropped because an earlier frame ran late. */
+	volatile long droppedFrames = 0;
+	
+	/**
+	 * Creates a render loop that is not yet running.
+	 * @param targetFps The most frames per second that will be drawn.
+	 * @param drawFrame Draws a single frame. This will be run on the render thread.
+	 */
+	RenderLoop(int targetFps, Runnable drawFrame)
+	{
+		this.periodNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, targetFps);
+		this.drawFrame = drawFrame;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, "Render Loop");
+			//the render loop should never keep the program open on its own
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Starts drawing a frame every {@link #periodNanos} nanoseconds.
+	 */
+	void start()
+	{
+		nextFrame = System.nanoTime();
+		scheduler.scheduleAtFixedRate(this::tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Stops the render loop and waits for the frame being drawn, if any, to finish. Once this returns, it is safe for
+	 * the calling thread to draw.
+	 */
+	void stop()
+	{
+		scheduler.shutdown();
+		try
+		{
+			scheduler.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch(InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Draws the current frame, unless it is already overdue because the frame before it ran late.
+	 */
+	void tick()
+	{
+		long now = System.nanoTime();
+		long due = nextFrame;
+		nextFrame += periodNanos;
+		
+		//the scheduler runs late ticks back to back, so any tick that is more than a whole period behind is dropped
+		if(now - due > periodNanos)
+		{
+			droppedFrames++;
+			return;
+		}
+		drawFrame.run();
+	}
+}
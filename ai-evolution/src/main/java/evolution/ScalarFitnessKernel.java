@@ -0,0 +1,60 @@
+package evolution;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The fitness kernel that looks at one step at a time. It works everywhere, and is what every other kernel has to agree
+ * with.
+ */
+class ScalarFitnessKernel implements FitnessKernel
+{
+	@Override
+	public String name()
+	{
+		return "scalar";
+	}
+	
+	@Override
+	public long doubledScore(int[] steps, int offset, int length, int width)
+	{
+		long score = 0;
+		for(int a = offset; a < offset + length; a++)
+		{
+			score += Math.abs(width - 2 * steps[a]);
+		}
+		return score;
+	}
+	
+	@Override
+	public boolean isPerfect(int[] steps, int offset, int length, int center)
+	{
+		for(int a = offset; a < offset + length; a++)
+		{
+			if(steps[a] != center)
+				return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public long doubledScore(ByteBuffer steps, int offset, int length, int width)
+	{
+		long score = 0;
+		for(int a = offset; a < offset + length; a++)
+		{
+			score += Math.abs(width - 2 * steps.getInt(a * Integer.BYTES));
+		}
+		return score;
+	}
+	
+	@Override
+	public boolean isPerfect(ByteBuffer steps, int offset, int length, int center)
+	{
+		for(int a = offset; a < offset + length; a++)
+		{
+			if(steps.getInt(a * Integer.BYTES) != center)
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,94 @@
+package evolution;
+
+/**
+ * Picks the parents the next generation of a {@link PopulationArena} is built from. The first parent is always the best
+ * AI of the generation, so the best score of a run never gets worse; the strategy picks the rest.
+ * <p>
+ * Every strategy can pick its parents on the calling thread or across the common ForkJoinPool, and picks the same 
+ * parents either way. A strategy that draws random numbers draws them from a stream of its own for every parent (see 
+ * {@link EvolutionRandom}), so the same seed picks the same parents no matter how many cores are used.
+ * </p>
+ * <p>
+ * A strategy is created for a single arena and may keep scratch space sized for it, so it must only be used by one 
+ * thread at a time.
+ * </p>
+ */
+interface SelectionStrategy
+{
+	/**
+	 * Picks every parent but the first.
+	 * @param generation The generation the parents are picked from. Every AI of it must already be scored.
+	 * @param parents The indexes of the parents, which are filled in from index 1 on. Index 0 holds the index of the 
+	 * best AI of the generation, and a parent may be picked more than once.
+	 * @param seed The master seed of the run.
+	 * @param gen The generation being picked from.
+	 * @param chunk The largest number of AI handed to a single task at a time. If this is at least the number of AI,
+	 * the parents are picked on the calling thread alone.
+	 */
+	void select(PopulationStore generation, int[] parents, long seed, int gen, int chunk);
+	
+	/**
+	 * @return the name of this strategy, as it is passed to {@link #named(String, int)}.
+	 */
+	String name();
+	
+	/**
+	 * The largest doubled score {@link #key(double, int)} can pack. A larger one would reach the sign bit of the key
+	 * and sort before every better AI, so a run whose AI could score more than this only ever has a single parent (see
+	 * {@link EvolutionEngine#checkSettings()}).
+	 */
+	static final long MAX_DOUBLED_SCORE = Integer.MAX_VALUE;
+	
+	/**
+	 * Every score is a multiple of 0.5, so AI can be ordered by their doubled score as an integer, with ties won by the
+	 * lower index, by packing both into a single long. The doubled score must be at most {@link #MAX_DOUBLED_SCORE}.
+	 * @param score The score of an AI.
+	 * @param a The index of that AI.
+	 * @return a key that sorts before the key of every AI that is worse, or equally good with a higher index.
+	 */
+	static long key(double score, int a)
+	{
+		return (long) (score * 2) << 32 | a;
+	}
+	
+	/**
+	 * @param name The name of a strategy: "top-k" to keep the best AI, "proportional" to pick AI with a chance that 
+	 * grows the better they are, or "tournament" to pick the best of a few AI picked at random. "tournament:&lt;size&gt;" 
+	 * picks the best of {@code size} AI instead of the default {@link TournamentSelection#DEFAULT_SIZE}.
+	 * @param aiCount The number of AI per generation.
+	 * @return a new strategy for an arena of that size.
+	 * @throws IllegalArgumentException Thrown if there is no strategy with the given name.
+	 */
+	static SelectionStrategy named(String name, int aiCount) throws IllegalArgumentException
+	{
+		if(name.equals("top-k"))
+		{
+			return new TopKSelection(name, aiCount);
+		}
+		if(name.equals("proportional"))
+		{
+			return new ProportionalSelection(name, aiCount);
+		}
+		if(name.equals("tournament") || name.startsWith("tournament:"))
+		{
+			int size = TournamentSelection.DEFAULT_SIZE;
+			if(name.startsWith("tournament:"))
+			{
+				try
+				{
+					size = Integer.parseInt(name.substring("tournament:".length()));
+				}
+				catch(NumberFormatException ex)
+				{
+					throw new IllegalArgumentException("The size of a tournament must be a number.");
+				}
+			}
+			if(size <= 0)
+			{
+				throw new IllegalArgumentException("The size of a tournament must be greater than 0.");
+			}
+			return new TournamentSelection(name, aiCount, size);
+		}
+		throw new IllegalArgumentException("There is no selection strategy named " + name + ".");
+	}
+}
@@ -0,0 +1,76 @@
+package evolution;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue that hands snapshots of a run from the thread simulating it to the thread drawing it, without either
+ * of them ever taking a lock or waiting for the other. If the queue is full, snapshots are dropped and counted instead
+ * of waiting for room, so the simulation never waits for the display.
+ * <p>
+ * The queue has a single producer and a single consumer. Everything put into it must be immutable once it is put in.
+ * </p>
+ * @param <T> The kind of snapshot.
+ */
+class SnapshotQueue<T>
+{
+	/** The number of snapshots the ring holds minus one. The number of snapshots is a power of 2. */
+	final int mask;
+	/** The snapshots in the ring. */
+	final Object[] slots;
+	/** The number of snapshots ever put into the ring. Only written by the producer. */
+	final AtomicLong head = new AtomicLong();
+	/** The number of snapshots ever taken out of the ring. Only written by the consumer. */
+	final AtomicLong tail = new AtomicLong();
+	/** The number of snapshots dropped because the ring was full. Only written by the producer. */
+	volatile long dropped = 0;
+	
+	/**
+	 * @param capacity The least number of snapshots the queue holds before snapshots are dropped.
+	 */
+	SnapshotQueue(int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+		mask = size - 1;
+		slots = new Object[size];
+	}
+	
+	/**
+	 * Puts a snapshot into the queue. This never waits: if the queue is full, the snapshot is dropped. Must only ever be
+	 * called by a single thread at a time.
+	 * @param snapshot The snapshot.
+	 * @return <b>{@code true}</b> if the snapshot was put into the queue. Otherwise, <b>{@code false}</b>.
+	 */
+	boolean offer(T snapshot)
+	{
+		long h = head.get();
+		if(h - tail.get() > mask)
+		{
+			dropped++;
+			return false;
+		}
+		slots[(int) h & mask] = snapshot;
+		//publishes the snapshot to the consumer only once it has been written
+		head.lazySet(h + 1);
+		return true;
+	}
+	
+	/**
+	 * Takes the oldest snapshot out of the queue. Must only ever be called by a single thread at a time.
+	 * @return the oldest snapshot, or null if the queue is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	T poll()
+	{
+		long t = tail.get();
+		if(t == head.get())
+		{
+			return null;
+		}
+		int slot = (int) t & mask;
+		T snapshot = (T) slots[slot];
+		//the slot is cleared so that a snapshot already drawn is not kept alive by the queue
+		slots[slot] = null;
+		tail.lazySet(t + 1);
+		return snapshot;
+	}
+}
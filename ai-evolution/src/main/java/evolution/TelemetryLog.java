@@ -0,0 +1,257 @@
+package evolution;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records statistics about every generation of an {@link EvolutionEngine} to a file, without ever making the engine
+ * wait for the disk. The engine puts each record into a ring buffer of preallocated arrays, and a background thread
+ * takes them out again and writes them to a {@link FileChannel}. If the writer falls so far behind that the ring is
+ * full, records are dropped and counted instead of waiting for room.
+ * <p>
+ * A file ending in ".csv" is written as comma-separated values with a header line. Any other file is written in binary:
+ * the magic number {@link #MAGIC} and the {@link #VERSION} of the format as ints, then every record as the generation
+ * as an int, the best, mean and worst score as doubles, the number of steps mutated as a long, the number of clones as
+ * an int, the time the generation took in nanoseconds as a long and the number of AI built per second as a double, all
+ * big-endian.
+ * </p>
+ * <p>
+ * The ring has a single producer, the thread simulating the generations, and a single consumer, the writer thread, so
+ * neither side ever takes a lock.
+ * </p>
+ */
+class TelemetryLog implements AutoCloseable
+{
+	/** The first four bytes of every binary telemetry file, "AIEt". */
+	static final int MAGIC = 0x41494574;
+	/** The version of the binary format written by this class. */
+	static final int VERSION = 1;
+	/** The number of bytes in each binary record. */
+	static final int RECORD_BYTES = Integer.BYTES + 3 * Double.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES
+			+ Double.BYTES;
+	/** The first line of every CSV telemetry file. */
+	static final String CSV_HEADER = "generation,best,mean,worst,mutations,clones,nanos,ai_per_second\n";
+	/** How long the writer sleeps when the ring is empty. */
+	static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	/** The file the records are written to. */
+	final FileChannel channel;
+	/** Whether the records are written as comma-separated values (true) or in binary (false). */
+	final boolean csv;
+	/** The number of records the ring holds minus one. The number of records is a power of 2. */
+	final int mask;
+	/** The generation of every record in the ring. */
+	final int[] generations;
+	/** The best score of every record in the ring. */
+	final double[] bests;
+	/** The mean score of every record in the ring. */
+	final double[] means;
+	/** The worst score of every record in the ring. */
+	final double[] worsts;
+	/** The number of steps mutated of every record in the ring. */
+	final long[] mutations;
+	/** The number of clones of every record in the ring. */
+	final int[] clones;
+	/** The time in nanoseconds of every record in the ring. */
+	final long[] nanos;
+	/** The number of AI built per second of every record in the ring. */
+	final double[] rates;
+	/** The number of records ever put into the ring. Only written by the producer. */
+	final AtomicLong head = new AtomicLong();
+	/** The number of records ever taken out of the ring. Only written by the writer. */
+	final AtomicLong tail = new AtomicLong();
+	/** The number of records dropped because the ring was full. Only written by the producer. */
+	volatile long dropped = 0;
+	/** Whether or not the writer should keep waiting for records. */
+	volatile boolean running = true;
+	/** The first exception the writer ran into, after which it stops writing. */
+	volatile IOException failure;
+	/** The thread that writes the records to {@link #channel}. */
+	final Thread writer;
+	
+	/**
+	 * Creates the file, replacing any file already there, and starts the writer.
+	 * @param path The file to write to. It is written as comma-separated values if it ends in ".csv", otherwise in
+	 * binary.
+	 * @param capacity The least number of records the ring holds before records are dropped.
+	 * @throws IOException Thrown if the file could not be created.
+	 */
+	TelemetryLog(Path path, int capacity) throws IOException
+	{
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		csv = path.toString().endsWith(".csv");
+		int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+		mask = size - 1;
+		generations = new int[size];
+		bests = new double[size];
+		means = new double[size];
+		worsts = new double[size];
+		mutations = new long[size];
+		clones = new int[size];
+		nanos = new long[size];
+		rates = new double[size];
+		
+		writer = new Thread(this::drain, "Telemetry Writer");
+		//the writer should never keep the program open on its own
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Puts a record into the ring for the writer to write. This never waits: if the ring is full, the record is dropped.
+	 * Must only ever be called by a single thread at a time.
+	 * @param generation The generation the record is for.
+	 * @param best The best score of the generation.
+	 * @param mean The mean score of the generation.
+	 * @param worst The worst score of the generation.
+	 * @param mutated The number of steps mutated in the generation.
+	 * @param cloned The number of AI of the generation skipped as clones.
+	 * @param elapsed The time the generation took in nanoseconds.
+	 * @param aiPerSecond The number of AI built per second during the generation.
+	 * @return <b>{@code true}</b> if the record was put into the ring. Otherwise, <b>{@code false}</b>.
+	 */
+	boolean record(int generation, double best, double mean, double worst, long mutated, int cloned, long elapsed,
+			double aiPerSecond)
+	{
+		long h = head.get();
+		if(h - tail.get() > mask)
+		{
+			dropped++;
+			return false;
+		}
+		int slot = (int) h & mask;
+		generations[slot] = generation;
+		bests[slot] = best;
+		means[slot] = mean;
+		worsts[slot] = worst;
+		mutations[slot] = mutated;
+		clones[slot] = cloned;
+		nanos[slot] = elapsed;
+		rates[slot] = aiPerSecond;
+		//publishes the record to the writer only once every field of it has been written
+		head.lazySet(h + 1);
+		return true;
+	}
+	
+	/**
+	 * Takes records out of the ring and writes them until the log is closed and the ring is empty. Run by
+	 * {@link #writer}.
+	 */
+	void drain()
+	{
+		ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+		StringBuilder line = new StringBuilder();
+		try
+		{
+			if(csv)
+			{
+				buffer.put(CSV_HEADER.getBytes(StandardCharsets.US_ASCII));
+			}
+			else
+			{
+				buffer.putInt(MAGIC).putInt(VERSION);
+			}
+			
+			while(true)
+			{
+				//reads running before head, so that no record put in before the log was closed is missed
+				boolean closing = !running;
+				long t = tail.get();
+				long h = head.get();
+				if(t == h)
+				{
+					flush(buffer);
+					if(closing)
+					{
+						return;
+					}
+					LockSupport.parkNanos(IDLE_NANOS);
+					continue;
+				}
+				
+				for(; t < h; t++)
+				{
+					int slot = (int) t & mask;
+					if(csv)
+					{
+						line.setLength(0);
+						line.append(generations[slot]).append(',').append(bests[slot]).append(',')
+								.append(means[slot]).append(',').append(worsts[slot]).append(',')
+								.append(mutations[slot]).append(',').append(clones[slot]).append(',')
+								.append(nanos[slot]).append(',').append(Math.round(rates[slot])).append('\n');
+						if(buffer.remaining() < line.length())
+						{
+							flush(buffer);
+						}
+						for(int c = 0; c < line.length(); c++)
+						{
+							buffer.put((byte) line.charAt(c));
+						}
+					}
+					else
+					{
+						if(buffer.remaining() < RECORD_BYTES)
+						{
+							flush(buffer);
+						}
+						buffer.putInt(generations[slot]).putDouble(bests[slot]).putDouble(means[slot])
+								.putDouble(worsts[slot]).putLong(mutations[slot]).putInt(clones[slot])
+								.putLong(nanos[slot]).putDouble(rates[slot]);
+					}
+					//frees the slot for the producer only once it has been read
+					tail.lazySet(t + 1);
+				}
+			}
+		}
+		catch(IOException ex)
+		{
+			failure = ex;
+		}
+	}
+	
+	/**
+	 * Writes everything in a buffer to the file and empties it.
+	 * @param buffer The buffer to write, from position 0 up to its position.
+	 * @throws IOException Thrown if the file could not be written to.
+	 */
+	void flush(ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * Waits for the writer to write every record left in the ring, then closes the file.
+	 * @throws IOException Thrown if the writer failed to write to the file, or if the file could not be closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		running = false;
+		try
+		{
+			writer.join();
+		}
+		catch(InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+		if(failure != null)
+		{
+			throw failure;
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package evolution;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Keeps the best AI of every generation as the parents of the next, which is elitism: the {@code k} lowest scores, with
+ * ties won by the lower index, in order from best to worst. The {@code k} best are found with a partial quickselect over 
+ * the {@link SelectionStrategy#key(double, int)} of every AI, which takes linear time rather than the time of sorting 
+ * the whole generation. A parallel selection first selects the {@code k} best of every chunk at once, then selects the
+ * {@code k} best of those.
+ */
+class TopKSelection implements SelectionStrategy
+{
+	/** The name this strategy was created with. */
+	final String name;
+	/** The key of every AI of the generation, which the selection reorders. */
+	final long[] keys;
+	
+	/**
+	 * @param name The name this strategy was created with.
+	 * @param aiCount The number of AI per generation.
+	 */
+	TopKSelection(String name, int aiCount)
+	{
+		this.name = name;
+		this.keys = new long[aiCount];
+	}
+	
+	@Override
+	public void select(PopulationStore generation, int[] parents, long seed, int gen, int chunk)
+	{
+		int k = parents.length;
+		int n = keys.length;
+		if(k == 1)
+		{
+			return;
+		}
+		
+		//a chunk smaller than k would keep every AI in it anyway
+		chunk = Math.max(chunk, k);
+		if(chunk >= n)
+		{
+			fill(generation, 0, n);
+			partialSelect(keys, 0, n, k);
+		}
+		else
+		{
+			ForkJoinPool.commonPool().invoke(new ChunkTask(generation, 0, n, chunk, k));
+			//the best of every chunk are gathered at the front, which never writes over a chunk not yet gathered
+			int gathered = 0;
+			for(int from = 0; from < n; from += chunk)
+			{
+				int length = Math.min(k, n - from);
+				System.arraycopy(keys, from, keys, gathered, length);
+				gathered += length;
+			}
+			partialSelect(keys, 0, gathered, k);
+		}
+		
+		//every key is unique, so the order of the parents does not depend on how they were found
+		Arrays.sort(keys, 0, k);
+		for(int j = 1; j < k; j++)
+		{
+			parents[j] = (int) keys[j];
+		}
+	}
+	
+	@Override
+	public String name()
+	{
+		return name;
+	}
+	
+	/**
+	 * Works out the key of every AI of a range.
+	 * @param generation The generation the AI belong to.
+	 * @param from The first index (inclusive) of the range.
+	 * @param to The last index (exclusive) of the range.
+	 */
+	void fill(PopulationStore generation, int from, int to)
+	{
+		for(int a = from; a < to; a++)
+		{
+			keys[a] = SelectionStrategy.key(generation.score(a), a);
+		}
+	}
+	
+	/**
+	 * Reorders a range of keys so that its {@code k} smallest keys come first, in no particular order, by quickselect
+	 * with a median of three pivot.
+	 * @param keys The keys, none of which are equal.
+	 * @param from The first index (inclusive) of the range.
+	 * @param to The last index (exclusive) of the range.
+	 * @param k The number of smallest keys to move to the front of the range.
+	 */
+	static void partialSelect(long[] keys, int from, int to, int k)
+	{
+		if(k >= to - from)
+		{
+			return;
+		}
+		
+		//the k-th smallest key is moved to target, with every smaller key before it
+		int target = from + k - 1;
+		int lo = from;
+		int hi = to - 1;
+		while(lo < hi)
+		{
+			long x = keys[lo];
+			long y = keys[(lo + hi) >>> 1];
+			long z = keys[hi];
+			long pivot = Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+			
+			int i = lo;
+			int j = hi;
+			while(i <= j)
+			{
+				while(keys[i] < pivot)
+				{
+					i++;
+				}
+				while(keys[j] > pivot)
+				{
+					j--;
+				}
+				if(i <= j)
+				{
+					long swap = keys[i];
+					keys[i] = keys[j];
+					keys[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			
+			//only the side holding the target is partitioned any further
+			if(target <= j)
+			{
+				hi = j;
+			}
+			else if(target >= i)
+			{
+				lo = i;
+			}
+			else
+			{
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Selects the {@code k} best AI of every chunk of a range to the front of that chunk. Ranges are only ever split on
+	 * the boundaries of chunks, so the chunks are the same however the work is spread.
+	 */
+	private class ChunkTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		/** The generation the AI belong to. */
+		final PopulationStore generation;
+		/** The first index (inclusive) of the range handled by this task. Always the start of a chunk. */
+		final int from;
+		/** The last index (exclusive) of the range handled by this task. */
+		final int to;
+		/** The number of AI in every chunk but the last. */
+		final int chunk;
+		/** The number of AI selected from every chunk. */
+		final int k;
+		
+		/**
+		 * @param generation The generation the AI belong to.
+		 * @param from The first index (inclusive) of the range. Must be the start of a chunk.
+		 * @param to The last index (exclusive) of the range.
+		 * @param chunk The number of AI in every chunk but the last.
+		 * @param k The number of AI selected from every chunk.
+		 */
+		ChunkTask(PopulationStore generation, int from, int to, int chunk, int k)
+		{
+			this.generation = generation;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+			this.k = k;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if(to - from <= chunk)
+			{
+				fill(generation, from, to);
+				partialSelect(keys, from, to, k);
+				return;
+			}
+			
+			int mid = from + (to - from) / chunk / 2 * chunk;
+			mid = Math.max(mid, from + chunk);
+			invokeAll(new ChunkTask(generation, from, mid, chunk, k), new ChunkTask(generation, mid, to, chunk, k));
+		}
+	}
+}
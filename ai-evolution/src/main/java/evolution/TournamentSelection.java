@@ -0,0 +1,142 @@
+package evolution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Picks every parent as the best of a few AI picked at random, which is tournament selection. The larger the 
+ * tournament, the more likely the better AI are to be picked; a tournament of 1 picks parents at random, and a 
+ * tournament as large as the generation nearly always picks its best AI.
+ * <p>
+ * Every tournament draws its AI from a stream of its own (see {@link EvolutionRandom#reseed(long, long, long)}), 
+ * numbered after the streams of the AI of the generation, so a parallel selection runs the tournaments of different
+ * parents at once and picks the same parents as a sequential one.
+ * </p>
+ */
+class TournamentSelection implements SelectionStrategy
+{
+	/** The number of AI in a tournament when no size is given. */
+	static final int DEFAULT_SIZE = 4;
+	
+	/** The name this strategy was created with. */
+	final String name;
+	/** The number of AI per generation. */
+	final int aiCount;
+	/** The number of AI in every tournament. */
+	final int size;
+	
+	/**
+	 * @param name The name this strategy was created with.
+	 * @param aiCount The number of AI per generation.
+	 * @param size The number of AI in every tournament.
+	 */
+	TournamentSelection(String name, int aiCount, int size)
+	{
+		this.name = name;
+		this.aiCount = aiCount;
+		this.size = size;
+	}
+	
+	@Override
+	public void select(PopulationStore generation, int[] parents, long seed, int gen, int chunk)
+	{
+		//a chunk is a number of AI, and every tournament looks at size of them
+		int slots = Math.max(1, chunk / size);
+		if(slots >= parents.length - 1)
+		{
+			pick(generation, parents, seed, gen, 1, parents.length);
+		}
+		else
+		{
+			ForkJoinPool.commonPool().invoke(new SlotTask(generation, parents, seed, gen, 1, parents.length, slots));
+		}
+	}
+	
+	@Override
+	public String name()
+	{
+		return name;
+	}
+	
+	/**
+	 * Runs the tournaments of a range of parents.
+	 * @param generation The generation the parents are picked from.
+	 * @param parents The indexes of the parents.
+	 * @param seed The master seed of the run.
+	 * @param gen The generation being picked from.
+	 * @param from The first parent (inclusive) to pick.
+	 * @param to The last parent (exclusive) to pick.
+	 */
+	void pick(PopulationStore generation, int[] parents, long seed, int gen, int from, int to)
+	{
+		EvolutionRandom random = EvolutionRandom.forThread();
+		for(int j = from; j < to; j++)
+		{
+			random.reseed(seed, gen, aiCount + j);
+			long best = Long.MAX_VALUE;
+			for(int t = 0; t < size; t++)
+			{
+				int a = random.nextInt(aiCount);
+				best = Math.min(best, SelectionStrategy.key(generation.score(a), a));
+			}
+			parents[j] = (int) best;
+		}
+	}
+	
+	/**
+	 * Runs the tournaments of a range of parents, splitting the range in half until it holds no more than a given 
+	 * number of parents.
+	 */
+	private class SlotTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		/** The generation the parents are picked from. */
+		final PopulationStore generation;
+		/** The indexes of the parents. */
+		final int[] parents;
+		/** The master seed of the run. */
+		final long seed;
+		/** The generation being picked from. */
+		final int gen;
+		/** The first parent (inclusive) handled by this task. */
+		final int from;
+		/** The last parent (exclusive) handled by this task. */
+		final int to;
+		/** The largest number of parents picked by a single task. */
+		final int slots;
+		
+		/**
+		 * @param generation The generation the parents are picked from.
+		 * @param parents The indexes of the parents.
+		 * @param seed The master seed of the run.
+		 * @param gen The generation being picked from.
+		 * @param from The first parent (inclusive) to pick.
+		 * @param to The last parent (exclusive) to pick.
+		 * @param slots The largest number of parents picked by a single task.
+		 */
+		SlotTask(PopulationStore generation, int[] parents, long seed, int gen, int from, int to, int slots)
+		{
+			this.generation = generation;
+			this.parents = parents;
+			this.seed = seed;
+			this.gen = gen;
+			this.from = from;
+			this.to = to;
+			this.slots = slots;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if(to - from <= slots)
+			{
+				pick(generation, parents, seed, gen, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new SlotTask(generation, parents, seed, gen, from, mid, slots), 
+					new SlotTask(generation, parents, seed, gen, mid, to, slots));
+		}
+	}
+}
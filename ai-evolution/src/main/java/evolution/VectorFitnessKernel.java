@@ -0,0 +1,107 @@
+package evolution;
+
+import java.nio.ByteBuffer;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The fitness kernel built on the incubating JDK Vector API, which looks at as many steps at a time as the widest
+ * vector the CPU supports holds. Nothing refers to this class directly, so the rest of the program runs without the
+ * incubating module. The build compiles it with the module added, and it is picked by name at run time:
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp ai-evolution/target/classes evolution.EvolutionEngine --kernel=vector
+ * </pre>
+ * It gives exactly the same results as {@link ScalarFitnessKernel}, which it falls back to for the steps left over at
+ * the end of an array.
+ */
+class VectorFitnessKernel implements FitnessKernel
+{
+	/** The widest vector of ints the CPU supports. */
+	static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+	
+	/** Handles the steps left over once the rest have been handled a whole vector at a time. */
+	final ScalarFitnessKernel tail = new ScalarFitnessKernel();
+	
+	@Override
+	public String name()
+	{
+		return "vector";
+	}
+	
+	@Override
+	public long doubledScore(int[] steps, int offset, int length, int width)
+	{
+		//each lane adds up to width per step, so the lanes are emptied into a long before they, or their total, could 
+		//	overflow
+		int vectorsPerBlock = Math.max(1, Integer.MAX_VALUE / Math.max(1, width) / SPECIES.length());
+		int end = offset + SPECIES.loopBound(length);
+		IntVector doubledCenter = IntVector.broadcast(SPECIES, width);
+		long score = 0;
+		
+		int a = offset;
+		while(a < end)
+		{
+			IntVector sum = IntVector.zero(SPECIES);
+			for(int vectors = 0; vectors < vectorsPerBlock && a < end; vectors++, a += SPECIES.length())
+			{
+				IntVector x = IntVector.fromArray(SPECIES, steps, a);
+				sum = sum.add(doubledCenter.sub(x.add(x)).lanewise(VectorOperators.ABS));
+			}
+			score += sum.reduceLanesToLong(VectorOperators.ADD);
+		}
+		return score + tail.doubledScore(steps, end, offset + length - end, width);
+	}
+	
+	@Override
+	public boolean isPerfect(int[] steps, int offset, int length, int center)
+	{
+		int end = offset + SPECIES.loopBound(length);
+		for(int a = offset; a < end; a += SPECIES.length())
+		{
+			if(IntVector.fromArray(SPECIES, steps, a).compare(VectorOperators.NE, center).anyTrue())
+			{
+				return false;
+			}
+		}
+		return tail.isPerfect(steps, end, offset + length - end, center);
+	}
+	
+	@Override
+	public long doubledScore(ByteBuffer steps, int offset, int length, int width)
+	{
+		int vectorsPerBlock = Math.max(1, Integer.MAX_VALUE / Math.max(1, width) / SPECIES.length());
+		int end = offset + SPECIES.loopBound(length);
+		IntVector doubledCenter = IntVector.broadcast(SPECIES, width);
+		long score = 0;
+		
+		int a = offset;
+		while(a < end)
+		{
+			IntVector sum = IntVector.zero(SPECIES);
+			for(int vectors = 0; vectors < vectorsPerBlock && a < end; vectors++, a += SPECIES.length())
+			{
+				IntVector x = IntVector.fromByteBuffer(SPECIES, steps, a * Integer.BYTES, steps.order());
+				sum = sum.add(doubledCenter.sub(x.add(x)).lanewise(VectorOperators.ABS));
+			}
+			score += sum.reduceLanesToLong(VectorOperators.ADD);
+		}
+		return score + tail.doubledScore(steps, end, offset + length - end, width);
+	}
+	
+	@Override
+	public boolean isPerfect(ByteBuffer steps, int offset, int length, int center)
+	{
+		int end = offset + SPECIES.loopBound(length);
+		for(int a = offset; a < end; a += SPECIES.length())
+		{
+			if(IntVector.fromByteBuffer(SPECIES, steps, a * Integer.BYTES, steps.order())
+					.compare(VectorOperators.NE, center).anyTrue())
+			{
+				return false;
+			}
+		}
+		return tail.isPerfect(steps, end, offset + length - end, center);
+	}
+}
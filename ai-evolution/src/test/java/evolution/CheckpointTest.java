@@ -0,0 +1,92 @@
+package evolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Checks that a run resumed from a {@link Checkpoint} finishes exactly where the same run finishes when it is never
+ * stopped, with the AI the run is built from, its parents and its mutation schedule all carried over.
+ */
+class CheckpointTest
+{
+	/** The number of generations in each batch. */
+	static final int VIEW_RATE = 5;
+	/** The number of generations between two checkpoints. */
+	static final int CHECKPOINT_INTERVAL = 20;
+	
+	/** A directory of its own for every test, which is deleted afterwards. */
+	@TempDir
+	Path directory;
+	
+	/**
+	 * @param parents The number of parents of the run.
+	 * @param selection How the parents are picked.
+	 * @param schedule How the mutations are adapted.
+	 * @return a new engine for the run, on one core.
+	 */
+	static EvolutionEngine engine(int parents, String selection, String schedule)
+	{
+		EvolutionEngine engine = EvolutionEngineTest.engine();
+		engine.PARENTS = parents;
+		engine.SELECTION = selection;
+		engine.SCHEDULE = schedule;
+		engine.PARALLEL_SIMULATE = false;
+		return engine;
+	}
+	
+	@ParameterizedTest
+	@CsvSource({"1, top-k, fixed", "4, top-k, one-fifth:4", "3, proportional, anneal:2", "4, tournament, anneal"})
+	void resumeMatchesAnUninterruptedRun(int parents, String selection, String schedule) throws IOException
+	{
+		Path path = directory.resolve("run.ckpt");
+		EvolutionEngine uninterrupted = engine(parents, selection, schedule);
+		AIEv bestAI = uninterrupted.start();
+		uninterrupted.CHECKPOINT = Checkpoint.create(path, uninterrupted);
+		uninterrupted.CHECKPOINT_INTERVAL = CHECKPOINT_INTERVAL;
+		AIEv expected = uninterrupted.run(bestAI, VIEW_RATE);
+		uninterrupted.CHECKPOINT.close();
+		assertTrue(uninterrupted.GEN_COUNTER > CHECKPOINT_INTERVAL, "the run finished before its first checkpoint");
+		
+		//the latest checkpoint is from before the run finished, so the resumed run builds the last generations again
+		try(Checkpoint checkpoint = Checkpoint.open(path))
+		{
+			EvolutionEngine resumed = checkpoint.engine();
+			resumed.PARALLEL_SIMULATE = false;
+			assertEquals(parents, resumed.PARENTS);
+			assertEquals(selection, resumed.SELECTION);
+			assertEquals(schedule, resumed.SCHEDULE);
+			assertTrue(checkpoint.generation() < uninterrupted.GEN_COUNTER);
+			AIEv actual = resumed.run(resumed.resume(checkpoint), VIEW_RATE);
+			assertEquals(uninterrupted.GEN_COUNTER, resumed.GEN_COUNTER);
+			assertEquals(uninterrupted.CLONES_SKIPPED.sum(), resumed.CLONES_SKIPPED.sum());
+			assertArrayEquals(expected.steps, actual.steps);
+		}
+	}
+	
+	@ParameterizedTest
+	@CsvSource({"2, top-k, fixed", "1, tournament, fixed", "1, top-k, anneal"})
+	void resumeRejectsAnotherRun(int parents, String selection, String schedule) throws IOException
+	{
+		Path path = directory.resolve("run.ckpt");
+		EvolutionEngine engine = engine(1, "top-k", "fixed");
+		AIEv bestAI = engine.start();
+		try(Checkpoint checkpoint = Checkpoint.create(path, engine))
+		{
+			bestAI = engine.simulate(bestAI, VIEW_RATE, engine.TOLERANCE);
+			checkpoint.write(engine.GEN_COUNTER, engine.CLONES_SKIPPED.sum(), engine.parents(bestAI), engine.schedule);
+		}
+		
+		try(Checkpoint checkpoint = Checkpoint.open(path))
+		{
+			assertThrows(IllegalArgumentException.class, () -> engine(parents, selection, schedule).resume(checkpoint));
+		}
+	}
+}
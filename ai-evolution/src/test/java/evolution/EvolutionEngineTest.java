@@ -0,0 +1,194 @@
+package evolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that a run of an {@link EvolutionEngine} with a given seed comes out the same however it is run. Every run is
+ * on a small population, so that many of them can be compared quickly.
+ */
+class EvolutionEngineTest
+{
+	/** The width the AI are scored against. */
+	static final int WIDTH = 40;
+	/** The largest x-value a step can have. */
+	static final int USABLE_WIDTH = 36;
+	/** The number of steps of every AI. */
+	static final int STEPS = 12;
+	/** The number of AI per generation. */
+	static final int AI_COUNT = 300;
+	/** The horizontal distance an AI can travel each step. */
+	static final int TOLERANCE = 36;
+	/** The rate at which mutation can occur. */
+	static final double MUTATION_RATE = 0.05;
+	/** The master seed of every run. */
+	static final long SEED = 7;
+	/** The number of generations every run is compared over. */
+	static final int GENERATIONS = 40;
+	/** The number of parents every run with a selection strategy keeps. */
+	static final int PARENTS = 4;
+	
+	/**
+	 * @return a new engine with the parameters of every run, which stops at the first perfect AI.
+	 */
+	static EvolutionEngine engine()
+	{
+		EvolutionEngine engine = new EvolutionEngine(WIDTH, USABLE_WIDTH, STEPS, AI_COUNT, TOLERANCE, MUTATION_RATE);
+		engine.SEED = SEED;
+		return engine;
+	}
+	
+	/**
+	 * @return every selection strategy paired with every mutation schedule.
+	 */
+	static List<Arguments> selectionsAndSchedules()
+	{
+		List<Arguments> arguments = new ArrayList<Arguments>();
+		for(String selection: new String[] {"top-k", "proportional", "tournament", "tournament:2"})
+		{
+			for(String schedule: new String[] {"fixed", "one-fifth:4", "anneal:2"})
+			{
+				arguments.add(Arguments.of(selection, schedule));
+			}
+		}
+		return arguments;
+	}
+	
+	/**
+	 * Runs an engine for {@link #GENERATIONS} generations from the start, in batches of 7.
+	 * @param engine The engine to run.
+	 * @return every parent the generation after the run would be built from, best first.
+	 */
+	static AIEv[] simulate(EvolutionEngine engine)
+	{
+		AIEv bestAI = engine.start();
+		for(int batch = 0; batch < GENERATIONS; batch += 7)
+		{
+			bestAI = engine.simulate(bestAI, Math.min(7, GENERATIONS - batch), engine.TOLERANCE);
+		}
+		return engine.parents(bestAI);
+	}
+	
+	/**
+	 * Checks that two runs ended in the same place.
+	 * @param expected The engine of the run that is known to be right.
+	 * @param expectedParents The parents that run ended with.
+	 * @param actual The engine of the run to check.
+	 * @param actualParents The parents that run ended with.
+	 */
+	static void assertSameRun(EvolutionEngine expected, AIEv[] expectedParents, EvolutionEngine actual,
+			AIEv[] actualParents)
+	{
+		assertEquals(expected.GEN_COUNTER, actual.GEN_COUNTER, "generation");
+		assertEquals(expected.CLONES_SKIPPED.sum(), actual.CLONES_SKIPPED.sum(), "clones skipped");
+		assertEquals(expectedParents.length, actualParents.length, "parents");
+		for(int j = 0; j < expectedParents.length; j++)
+		{
+			assertEquals(expectedParents[j].score, actualParents[j].score, "score of parent " + j);
+			assertArrayEquals(expectedParents[j].steps, actualParents[j].steps, "steps of parent " + j);
+		}
+		assertEquals(expected.schedule.rateScale(), actual.schedule.rateScale(), "rate of the schedule");
+		assertEquals(expected.schedule.toleranceScale(), actual.schedule.toleranceScale(),
+				"tolerance of the schedule");
+	}
+	
+	@ParameterizedTest
+	@MethodSource("selectionsAndSchedules")
+	void parallelMatchesSequential(String selection, String schedule)
+	{
+		EvolutionEngine sequential = engine();
+		EvolutionEngine parallel = engine();
+		for(EvolutionEngine engine: new EvolutionEngine[] {sequential, parallel})
+		{
+			engine.SELECTION = selection;
+			engine.SCHEDULE = schedule;
+			engine.PARENTS = PARENTS;
+		}
+		sequential.PARALLEL_SIMULATE = false;
+		//chunks far smaller than the population, so that even a single core splits every generation many times
+		parallel.PARALLEL_CHUNK_SIZE = 16;
+		assertSameRun(sequential, simulate(sequential), parallel, simulate(parallel));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"agent-major", "gene-major"})
+	void storesMatchTheHeap(String store)
+	{
+		EvolutionEngine heap = engine();
+		EvolutionEngine offHeap = engine();
+		for(EvolutionEngine engine: new EvolutionEngine[] {heap, offHeap})
+		{
+			engine.PARENTS = PARENTS;
+			engine.SELECTION = "tournament";
+			engine.PARALLEL_SIMULATE = false;
+		}
+		offHeap.STORE = store;
+		assertSameRun(heap, simulate(heap), offHeap, simulate(offHeap));
+	}
+	
+	@Test
+	void vectorKernelMatchesScalar()
+	{
+		EvolutionEngine scalar = engine();
+		EvolutionEngine vector = engine();
+		for(EvolutionEngine engine: new EvolutionEngine[] {scalar, vector})
+		{
+			//every AI is scored in full, so that the kernel scores every step rather than only the mutated ones
+			engine.INCREMENTAL_FITNESS = false;
+			engine.PARALLEL_SIMULATE = false;
+		}
+		vector.KERNEL = FitnessKernel.named("vector");
+		assertEquals("vector", vector.KERNEL.name());
+		assertSameRun(scalar, simulate(scalar), vector, simulate(vector));
+	}
+	
+	@Test
+	void fullFitnessMatchesIncremental()
+	{
+		EvolutionEngine incremental = engine();
+		EvolutionEngine full = engine();
+		full.INCREMENTAL_FITNESS = false;
+		assertSameRun(incremental, simulate(incremental), full, simulate(full));
+	}
+	
+	@Test
+	void wholeRunFinishesAtTheSameGeneration()
+	{
+		EvolutionEngine sequential = engine();
+		EvolutionEngine parallel = engine();
+		sequential.PARALLEL_SIMULATE = false;
+		parallel.PARALLEL_CHUNK_SIZE = 16;
+		AIEv expected = sequential.run(10);
+		AIEv actual = parallel.run(10);
+		assertTrue(sequential.isPerfect(expected));
+		assertEquals(sequential.GEN_COUNTER, parallel.GEN_COUNTER);
+		assertArrayEquals(expected.steps, actual.steps);
+	}
+	
+	@Test
+	void checkSettingsRefusesScoresTooLargeToPickParentsBy()
+	{
+		//every step can be 50000 away from the center, which doubled over 100000 steps is far past what a key holds
+		EvolutionEngine engine = new EvolutionEngine(100_000, 100_000, 100_000, AI_COUNT, TOLERANCE, MUTATION_RATE);
+		assertTrue(engine.maxDoubledScore() > SelectionStrategy.MAX_DOUBLED_SCORE);
+		engine.checkSettings();
+		engine.PARENTS = 2;
+		assertThrows(IllegalArgumentException.class, engine::checkSettings);
+		
+		//the worst AI of every other run still sorts after every better one
+		EvolutionEngine small = engine();
+		small.PARENTS = PARENTS;
+		small.checkSettings();
+		assertTrue(SelectionStrategy.key(small.maxDoubledScore() / 2.0, 0) > SelectionStrategy.key(0, AI_COUNT - 1));
+	}
+}
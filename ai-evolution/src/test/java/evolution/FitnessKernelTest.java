@@ -0,0 +1,129 @@
+package evolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link VectorFitnessKernel} gives exactly the same results as {@link ScalarFitnessKernel}, over lengths
+ * that are and are not a multiple of the lanes of a vector, and at offsets that are not aligned to one.
+ */
+class FitnessKernelTest
+{
+	/** The width the steps are scored against. */
+	static final int WIDTH = 40;
+	/** The longest run of steps that is scored, which spans several vectors of any species. */
+	static final int MAX_LENGTH = 70;
+	
+	/** The kernel every other kernel is checked against. */
+	static final FitnessKernel SCALAR = new ScalarFitnessKernel();
+	/** The kernel on the Vector API. */
+	static FitnessKernel vector;
+	
+	/**
+	 * Loads the vector kernel, which the tests are run with {@code --add-modules jdk.incubator.vector} for, so that it
+	 * is never quietly replaced with the scalar one.
+	 */
+	@BeforeAll
+	static void loadVectorKernel()
+	{
+		vector = FitnessKernel.named("vector");
+		assertEquals("vector", vector.name());
+	}
+	
+	/**
+	 * @param length The number of steps.
+	 * @param seed The seed the steps are drawn from.
+	 * @return random steps from 0 up to {@link #WIDTH}, a few of which land on the center.
+	 */
+	static int[] steps(int length, long seed)
+	{
+		SplittableRandom random = new SplittableRandom(seed);
+		int[] steps = new int[length];
+		for(int i = 0; i < length; i++)
+		{
+			steps[i] = random.nextInt(4) == 0 ? WIDTH / 2 : random.nextInt(WIDTH + 1);
+		}
+		return steps;
+	}
+	
+	/**
+	 * @param steps Some steps.
+	 * @return a direct buffer holding the steps as ints in the native byte order, as an {@link OffHeapPopulationStore}
+	 * holds them.
+	 */
+	static ByteBuffer direct(int[] steps)
+	{
+		ByteBuffer buffer = ByteBuffer.allocateDirect(steps.length * Integer.BYTES).order(ByteOrder.nativeOrder());
+		buffer.asIntBuffer().put(steps);
+		return buffer;
+	}
+	
+	@Test
+	void doubledScoreMatchesScalar()
+	{
+		int[] steps = steps(MAX_LENGTH + 3, 1);
+		ByteBuffer buffer = direct(steps);
+		for(int offset = 0; offset < 3; offset++)
+		{
+			for(int length = 0; length <= MAX_LENGTH; length++)
+			{
+				long expected = SCALAR.doubledScore(steps, offset, length, WIDTH);
+				assertEquals(expected, vector.doubledScore(steps, offset, length, WIDTH),
+						"offset " + offset + ", length " + length);
+				assertEquals(expected, vector.doubledScore(buffer, offset, length, WIDTH),
+						"offset " + offset + ", length " + length + " off the heap");
+				assertEquals(expected, SCALAR.doubledScore(buffer, offset, length, WIDTH),
+						"offset " + offset + ", length " + length + " off the heap, scalar");
+			}
+		}
+	}
+	
+	@Test
+	void isPerfectMatchesScalar()
+	{
+		int[] steps = new int[MAX_LENGTH];
+		Arrays.fill(steps, WIDTH / 2);
+		//a single step off the center, in every position in turn, as well as none at all
+		for(int off = -1; off < MAX_LENGTH; off++)
+		{
+			if(off >= 0)
+			{
+				steps[off] = WIDTH / 2 + 1;
+			}
+			ByteBuffer buffer = direct(steps);
+			for(int length = 0; length <= MAX_LENGTH; length++)
+			{
+				boolean expected = SCALAR.isPerfect(steps, 0, length, WIDTH / 2);
+				assertEquals(expected, off < 0 || off >= length);
+				assertEquals(expected, vector.isPerfect(steps, 0, length, WIDTH / 2),
+						"step " + off + " off, length " + length);
+				assertEquals(expected, vector.isPerfect(buffer, 0, length, WIDTH / 2),
+						"step " + off + " off, length " + length + " off the heap");
+			}
+			if(off >= 0)
+			{
+				steps[off] = WIDTH / 2;
+			}
+		}
+	}
+	
+	@Test
+	void scoreAllMatchesScalar()
+	{
+		int steps = 13;
+		int aiCount = 20;
+		int[] slab = steps(steps * aiCount, 2);
+		double[] expected = new double[aiCount];
+		double[] actual = new double[aiCount];
+		SCALAR.scoreAll(slab, 3, aiCount, steps, WIDTH, expected);
+		vector.scoreAll(slab, 3, aiCount, steps, WIDTH, actual);
+		assertArrayEquals(expected, actual);
+	}
+}
@@ -0,0 +1,45 @@
+package evolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that islands run in separate processes by an {@link IslandCoordinator} evolve exactly as the same islands do
+ * in this process in an {@link IslandModel}.
+ */
+class IslandCoordinatorTest
+{
+	/** The number of islands. */
+	static final int ISLANDS = 2;
+	/** The number of generations between two exchanges of AI. */
+	static final int MIGRATION_INTERVAL = 5;
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"ring", "full"})
+	void workersMatchInProcessIslands(String topology) throws IOException
+	{
+		EvolutionEngine template = EvolutionEngineTest.engine();
+		template.PARENTS = 3;
+		template.SELECTION = "tournament";
+		template.SCHEDULE = "anneal";
+		
+		IslandModel model = new IslandModel(template, ISLANDS, MIGRATION_INTERVAL, topology);
+		AIEv expected = model.run();
+		IslandCoordinator coordinator = new IslandCoordinator(template, ISLANDS, MIGRATION_INTERVAL, topology);
+		AIEv actual = coordinator.run(0);
+		
+		assertEquals(model.generation(), coordinator.generation);
+		assertEquals(model.bestIsland, coordinator.bestIsland);
+		assertEquals(expected.score, actual.score);
+		assertArrayEquals(expected.steps, actual.steps);
+		for(int i = 0; i < ISLANDS; i++)
+		{
+			assertEquals(model.bestAIs[i].score, coordinator.bestAIs[i].score, "island " + i);
+			assertArrayEquals(model.bestAIs[i].steps, coordinator.bestAIs[i].steps, "island " + i);
+		}
+	}
+}
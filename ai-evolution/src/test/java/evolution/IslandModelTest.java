@@ -0,0 +1,59 @@
+package evolution;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Checks that an {@link IslandModel} stops every island once any of them fails, instead of leaving the others waiting
+ * for it at the next exchange.
+ */
+class IslandModelTest
+{
+	/**
+	 * @param model The islands.
+	 * @param island The index of the island to replace.
+	 * @param failure What the island throws once it starts simulating.
+	 */
+	static void fail(IslandModel model, int island, Throwable failure)
+	{
+		EvolutionEngine engine = model.islands[island];
+		model.islands[island] = new EvolutionEngine(engine.WIDTH, engine.USABLE_WIDTH, engine.STEPS, engine.AI_COUNT,
+				engine.TOLERANCE, engine.MUTATION_RATE)
+		{
+			@Override
+			public AIEv simulate(AIEv bestAI, int count, int tolerance)
+			{
+				if(failure instanceof Error error)
+				{
+					throw error;
+				}
+				throw (RuntimeException) failure;
+			}
+		};
+		model.islands[island].SEED = engine.SEED;
+	}
+	
+	@Test
+	@Timeout(value = 30, unit = TimeUnit.SECONDS)
+	void exceptionStopsEveryIsland()
+	{
+		IslandModel model = new IslandModel(EvolutionEngineTest.engine(), 3, 5, "ring");
+		IllegalStateException failure = new IllegalStateException("island failed");
+		fail(model, 1, failure);
+		assertSame(failure, assertThrows(IllegalStateException.class, model::run));
+	}
+	
+	@Test
+	@Timeout(value = 30, unit = TimeUnit.SECONDS)
+	void errorStopsEveryIsland()
+	{
+		IslandModel model = new IslandModel(EvolutionEngineTest.engine(), 3, 5, "ring");
+		OutOfMemoryError failure = new OutOfMemoryError("island ran out of memory");
+		fail(model, 2, failure);
+		assertSame(failure, assertThrows(OutOfMemoryError.class, model::run));
+	}
+}
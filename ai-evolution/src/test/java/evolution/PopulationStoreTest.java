@@ -0,0 +1,129 @@
+package evolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that every kind of {@link PopulationStore} holds, copies and scores a generation exactly as a
+ * {@link HeapPopulationStore} does.
+ */
+class PopulationStoreTest
+{
+	/** The number of AI in every store. */
+	static final int AI_COUNT = 37;
+	/** The number of steps of every AI. */
+	static final int STEPS = 11;
+	/** The width the AI are scored against. */
+	static final int WIDTH = FitnessKernelTest.WIDTH;
+	
+	/**
+	 * Fills a store with the same generation whatever kind it is, writing half of the AI whole and the other half step
+	 * by step. Every seventh AI is perfect.
+	 * @param store The store to fill.
+	 * @return the store.
+	 */
+	static PopulationStore fill(PopulationStore store)
+	{
+		for(int a = 0; a < AI_COUNT; a++)
+		{
+			int[] steps = a % 7 == 0 ? perfect() : FitnessKernelTest.steps(STEPS, a);
+			if(a % 2 == 0)
+			{
+				store.writeRow(a, steps);
+			}
+			else
+			{
+				for(int step = 0; step < STEPS; step++)
+				{
+					store.set(a, step, steps[step]);
+				}
+			}
+			store.setOffCenter(a, a);
+			store.setClone(a, a % 3 == 0);
+		}
+		return store;
+	}
+	
+	/**
+	 * @return the steps of a perfect AI.
+	 */
+	static int[] perfect()
+	{
+		int[] steps = new int[STEPS];
+		Arrays.fill(steps, WIDTH / 2);
+		return steps;
+	}
+	
+	/**
+	 * Checks that two stores hold the same generation.
+	 * @param expected The store that is known to be right.
+	 * @param actual The store to check.
+	 */
+	static void assertSameGeneration(PopulationStore expected, PopulationStore actual)
+	{
+		int[] expectedRow = new int[STEPS + 1];
+		int[] actualRow = new int[STEPS + 1];
+		for(int a = 0; a < AI_COUNT; a++)
+		{
+			expected.readRow(a, expectedRow, 1);
+			actual.readRow(a, actualRow, 1);
+			assertArrayEquals(expectedRow, actualRow, "AI " + a);
+			for(int step = 0; step < STEPS; step++)
+			{
+				assertEquals(expected.get(a, step), actual.get(a, step), "AI " + a + ", step " + step);
+			}
+			assertEquals(expected.score(a), actual.score(a), "AI " + a);
+			assertEquals(expected.offCenter(a), actual.offCenter(a), "AI " + a);
+			assertEquals(expected.isClone(a), actual.isClone(a), "AI " + a);
+			assertEquals(expected.isPerfect(a, FitnessKernelTest.SCALAR, WIDTH / 2),
+					actual.isPerfect(a, FitnessKernelTest.SCALAR, WIDTH / 2), "AI " + a);
+		}
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"agent-major", "gene-major"})
+	void holdsTheSameGenerationAsTheHeap(String name)
+	{
+		PopulationStore heap = fill(PopulationStore.named("heap", AI_COUNT, STEPS));
+		PopulationStore store = fill(PopulationStore.named(name, AI_COUNT, STEPS));
+		heap.scoreAll(FitnessKernelTest.SCALAR, 0, AI_COUNT, WIDTH);
+		store.scoreAll(FitnessKernelTest.SCALAR, 0, AI_COUNT, WIDTH);
+		assertSameGeneration(heap, store);
+		
+		//scoring again with the vector kernel, and only part of the generation, must change nothing
+		store.scoreAll(FitnessKernel.named("vector"), 5, AI_COUNT - 5, WIDTH);
+		assertSameGeneration(heap, store);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"heap", "agent-major", "gene-major"})
+	void copiesRowsAsTheHeapDoes(String name)
+	{
+		PopulationStore heap = fill(PopulationStore.named("heap", AI_COUNT, STEPS));
+		PopulationStore heapCopy = fill(PopulationStore.named("heap", AI_COUNT, STEPS));
+		PopulationStore source = fill(PopulationStore.named(name, AI_COUNT, STEPS));
+		PopulationStore copy = fill(PopulationStore.named(name, AI_COUNT, STEPS));
+		//every AI is written over by another, so rows are copied in every direction
+		for(int a = 0; a < AI_COUNT; a++)
+		{
+			heapCopy.copyRow(a, heap, AI_COUNT - 1 - a);
+			copy.copyRow(a, source, AI_COUNT - 1 - a);
+		}
+		heapCopy.scoreAll(FitnessKernelTest.SCALAR, 0, AI_COUNT, WIDTH);
+		copy.scoreAll(FitnessKernelTest.SCALAR, 0, AI_COUNT, WIDTH);
+		assertSameGeneration(heapCopy, copy);
+	}
+	
+	@Test
+	void refusesMoreScoresThanABufferHolds()
+	{
+		//every line of a single step fits, but the scores of that many AI would take more than 2 GiB
+		assertThrows(IllegalArgumentException.class, () -> new OffHeapPopulationStore(Integer.MAX_VALUE / 4, 1, false));
+	}
+}
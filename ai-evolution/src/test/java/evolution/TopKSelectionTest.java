@@ -0,0 +1,141 @@
+package evolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link TopKSelection} finds the best AI of a generation, both with the partial quickselect on its own
+ * and with a whole selection split into chunks.
+ */
+class TopKSelectionTest
+{
+	/**
+	 * @param n The number of keys.
+	 * @param seed The seed the keys are drawn from.
+	 * @param range The number of values each key is drawn from, which is at least {@code n}.
+	 * @return {@code n} random keys, none of which are equal.
+	 */
+	static long[] keys(int n, long seed, int range)
+	{
+		SplittableRandom random = new SplittableRandom(seed);
+		return random.longs(0, range).distinct().limit(n).toArray();
+	}
+	
+	/**
+	 * Checks that {@link TopKSelection#partialSelect(long[], int, int, int)} moved the {@code k} smallest keys of a
+	 * range to its front, left every key outside of the range in place, and only reordered the keys of the range.
+	 * @param before The keys before the selection.
+	 * @param after The keys after the selection.
+	 * @param from The first index (inclusive) of the range.
+	 * @param to The last index (exclusive) of the range.
+	 * @param k The number of smallest keys that were selected.
+	 */
+	static void assertSelected(long[] before, long[] after, int from, int to, int k)
+	{
+		String message = "from " + from + ", to " + to + ", k " + k;
+		assertArrayEquals(Arrays.copyOfRange(before, 0, from), Arrays.copyOfRange(after, 0, from), message);
+		assertArrayEquals(Arrays.copyOfRange(before, to, before.length),
+				Arrays.copyOfRange(after, to, after.length), message);
+		
+		long[] expected = Arrays.copyOfRange(before, from, to);
+		long[] actual = Arrays.copyOfRange(after, from, to);
+		Arrays.sort(expected);
+		int kept = Math.min(k, to - from);
+		long[] best = Arrays.copyOfRange(actual, 0, kept);
+		Arrays.sort(best);
+		assertArrayEquals(Arrays.copyOfRange(expected, 0, kept), best, message);
+		Arrays.sort(actual);
+		assertArrayEquals(expected, actual, message);
+	}
+	
+	@Test
+	void partialSelectFindsTheSmallestKeys()
+	{
+		for(int n = 1; n <= 40; n++)
+		{
+			for(int k = 1; k <= n + 1; k++)
+			{
+				//keys spread far apart, and keys that leave almost no gaps between them
+				for(int range: new int[] {1 << 20, n + 1})
+				{
+					long[] before = keys(n, n * 100L + k, range);
+					long[] after = before.clone();
+					TopKSelection.partialSelect(after, 0, n, k);
+					assertSelected(before, after, 0, n, k);
+				}
+			}
+		}
+	}
+	
+	@Test
+	void partialSelectStaysInItsRange()
+	{
+		long[] before = keys(200, 7, 1 << 20);
+		for(int from = 0; from < 200; from += 23)
+		{
+			for(int to = from + 1; to <= 200; to += 31)
+			{
+				long[] after = before.clone();
+				TopKSelection.partialSelect(after, from, to, 5);
+				assertSelected(before, after, from, to, 5);
+			}
+		}
+	}
+	
+	@Test
+	void partialSelectHandlesSortedKeys()
+	{
+		long[] ascending = new long[100];
+		long[] descending = new long[100];
+		for(int i = 0; i < 100; i++)
+		{
+			ascending[i] = i;
+			descending[i] = 100 - i;
+		}
+		for(long[] before: new long[][] {ascending, descending})
+		{
+			long[] after = before.clone();
+			TopKSelection.partialSelect(after, 0, 100, 10);
+			assertSelected(before, after, 0, 100, 10);
+		}
+	}
+	
+	@Test
+	void selectKeepsTheBestAIInOrderWhateverTheChunks()
+	{
+		int aiCount = 300;
+		PopulationStore generation = PopulationStore.named("heap", aiCount, 1);
+		SplittableRandom random = new SplittableRandom(11);
+		for(int a = 0; a < aiCount; a++)
+		{
+			//few distinct scores, so that many ties are won by the lower index
+			generation.setScore(a, random.nextInt(20) / 2.0);
+		}
+		
+		int k = 6;
+		Integer[] order = new Integer[aiCount];
+		for(int a = 0; a < aiCount; a++)
+		{
+			order[a] = a;
+		}
+		Arrays.sort(order, (x, y) -> Long.compare(SelectionStrategy.key(generation.score(x), x),
+				SelectionStrategy.key(generation.score(y), y)));
+		int[] expected = new int[k];
+		for(int j = 0; j < k; j++)
+		{
+			expected[j] = order[j];
+		}
+		
+		for(int chunk: new int[] {1, 7, 64, aiCount})
+		{
+			int[] parents = new int[k];
+			//the engine always puts the best AI first itself
+			parents[0] = expected[0];
+			new TopKSelection("top-k", aiCount).select(generation, parents, 0, 1, chunk);
+			assertArrayEquals(expected, parents, "chunk " + chunk);
+		}
+	}
+}
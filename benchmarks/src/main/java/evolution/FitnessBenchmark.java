@@ -0,0 +1,85 @@
+package evolution;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the fitness function and {@link EvolutionEngine#isPerfect(AIEv)} on a single AI, with each
+ * {@link FitnessKernel}. The vector kernel needs the incubating module, which every fork is started with.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class FitnessBenchmark
+{
+	/** The number of steps each AI takes. */
+	@Param({"100", "1000", "10000"})
+	int steps;
+	
+	/** The kernel that works out the fitness function. */
+	@Param({"scalar", "vector"})
+	String kernel;
+	
+	/** The engine whose fitness function is measured. */
+	EvolutionEngine engine;
+	/** A random AI, which is scored from scratch. */
+	AIEv ai;
+	/** A perfect AI, which {@link EvolutionEngine#isPerfect(AIEv)} has to look at every step of. */
+	AIEv perfect;
+	/** A scored parent, which mutated AI inherit their score from. */
+	AIEv parent;
+	/** The generator every mutated AI is built from. */
+	EvolutionRandom random;
+	/** The index of the next AI to be built, which picks its stream. */
+	long index = 0;
+	
+	@Setup
+	public void setup()
+	{
+		engine = new EvolutionEngine(500, 495, steps, 1000, 495, 1.0 / 95.0);
+		engine.KERNEL = FitnessKernel.named(kernel);
+		random = EvolutionRandom.forThread();
+		ai = new AIEv(steps, engine.USABLE_WIDTH, random.reseed(1, 0, 0));
+		int[] center = new int[steps];
+		Arrays.fill(center, engine.WIDTH / 2);
+		perfect = new AIEv(center, 0);
+		parent = new AIEv(steps, engine.USABLE_WIDTH, random.reseed(1, 0, 1));
+		engine.score(parent);
+	}
+	
+	@Benchmark
+	public double fullScore()
+	{
+		return engine.fullScore(ai);
+	}
+	
+	@Benchmark
+	public double incrementalScore()
+	{
+		//a clone comes back as the already scored parent, which costs nothing to score again
+		AIEv child = AIEv.mutate(parent, engine.USABLE_WIDTH, engine.TOLERANCE, engine.MUTATION_RATE, 
+				random.reseed(1, 1, index++));
+		return engine.score(child);
+	}
+	
+	@Benchmark
+	public boolean isPerfect()
+	{
+		return engine.isPerfect(perfect);
+	}
+}
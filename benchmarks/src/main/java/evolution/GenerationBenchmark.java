@@ -0,0 +1,57 @@
+package evolution;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a whole generation: building every AI from the parent, scoring it and finding the best, at several sizes of
+ * generation. Every generation is built from the same parent, so every invocation does the same amount of work. The
+ * generation is built on a single core, so that the numbers do not depend on how many cores the machine has.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerationBenchmark
+{
+	/** The number of AI per generation. */
+	@Param({"100", "1000", "10000"})
+	int aiCount;
+	
+	/** The number of steps each AI takes. */
+	@Param({"100", "1000"})
+	int steps;
+	
+	/** The engine the generations are built by. */
+	EvolutionEngine engine;
+	/** The AI every generation is built from. */
+	AIEv parent;
+	
+	@Setup
+	public void setup()
+	{
+		engine = new EvolutionEngine(500, 495, steps, aiCount, 495, 1.0 / 95.0);
+		engine.SEED = 1;
+		engine.PARALLEL_SIMULATE = false;
+		parent = engine.start();
+	}
+	
+	@Benchmark
+	public AIEv generation()
+	{
+		return engine.simulate(parent, 1, engine.TOLERANCE);
+	}
+}
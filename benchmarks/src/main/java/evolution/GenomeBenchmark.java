@@ -0,0 +1,64 @@
+package evolution;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast single AI are built: a random AI, as every run starts with, and an AI mutated from a parent, as
+ * every other AI is. Every AI is built from a stream of its own, the way the engine builds them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GenomeBenchmark
+{
+	/** The number of steps each AI takes. */
+	@Param({"100", "1000", "10000"})
+	int steps;
+	
+	/** The largest x-value a step can have. */
+	static final int WIDTH = 495;
+	/** The rate at which mutation can occur, the default of the simulation. */
+	static final double MUTATION_RATE = 1.0 / 95.0;
+	
+	/** The AI every mutated AI is built from. */
+	AIEv parent;
+	/** The generator every AI is built from. */
+	EvolutionRandom random;
+	/** The index of the next AI to be built, which picks its stream. */
+	long index = 0;
+	
+	@Setup
+	public void setup()
+	{
+		random = EvolutionRandom.forThread();
+		parent = new AIEv(steps, WIDTH, random.reseed(1, 0, 0));
+	}
+	
+	@Benchmark
+	public AIEv randomGenome()
+	{
+		return new AIEv(steps, WIDTH, random.reseed(1, 0, index++));
+	}
+	
+	@Benchmark
+	public AIEv mutatedGenome()
+	{
+		//clones come back as the parent itself, just like they do in a run
+		return AIEv.mutate(parent, WIDTH, WIDTH, MUTATION_RATE, random.reseed(1, 1, index++));
+	}
+}
@@ -0,0 +1,80 @@
+package evolution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures finding the best AI of a generation once every AI of it has been scored, and picking the {@link #PARENTS} 
+ * best with {@link TopKSelection} on a single core and across the common ForkJoinPool.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectionBenchmark
+{
+	/** The number of parents picked by top-k selection. */
+	static final int PARENTS = 16;
+	
+	/** The number of AI per generation. */
+	@Param({"1000", "10000", "100000"})
+	int aiCount;
+	
+	/** A generation of AI with random scores. */
+	PopulationStore generation;
+	/** Picks the best AI of the generation as parents. */
+	TopKSelection topK;
+	/** The indexes of the parents picked. */
+	int[] parents;
+	
+	@Setup
+	public void setup()
+	{
+		generation = new HeapPopulationStore(aiCount, 1);
+		EvolutionRandom random = EvolutionRandom.forThread().reseed(1, 0, 0);
+		for(int a = 0; a < aiCount; a++)
+		{
+			//scores are always a multiple of 0.5, so ties happen just as they do in a run
+			generation.setScore(a, random.nextInt(100_000) / 2.0);
+		}
+		topK = new TopKSelection("top-k", aiCount);
+		parents = new int[PARENTS];
+		parents[0] = EvolutionEngine.selectBest(generation, 0, aiCount);
+	}
+	
+	@Benchmark
+	public int selectBest()
+	{
+		return EvolutionEngine.selectBest(generation, 0, aiCount);
+	}
+	
+	@Benchmark
+	public int[] topKSequential()
+	{
+		topK.select(generation, parents, 1, 0, aiCount);
+		return parents;
+	}
+	
+	@Benchmark
+	public int[] topKParallel()
+	{
+		//the same chunks a parallel generation of this size is split into
+		int chunk = Math.max(256, aiCount / (ForkJoinPool.getCommonPoolParallelism() * 4));
+		topK.select(generation, parents, 1, 0, chunk);
+		return parents;
+	}
+}
@@ -0,0 +1,84 @@
+package evolution;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long a whole run takes to find a perfect AI with each {@link SelectionStrategy}, number of parents and 
+ * {@link MutationSchedule} at two widths, and how many generations it takes. Every iteration is a single run with a 
+ * seed of its own, so the numbers are spread over as many runs as there are iterations. The runs are built on a single
+ * core, so that the numbers do not depend on how many cores the machine has.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeToSolutionBenchmark
+{
+	/** The strategy that picks the parents of every generation. */
+	@Param({"top-k", "proportional", "tournament"})
+	String strategy;
+	
+	/** The number of parents every generation is built from. */
+	@Param({"1", "4", "16"})
+	int parents;
+	
+	/** The schedule the mutation rate and tolerance follow. */
+	@Param({"fixed", "one-fifth", "anneal"})
+	String schedule;
+	
+	/** The width the AI are scored against, which is also their tolerance. */
+	@Param({"500", "4000"})
+	int width;
+	
+	/** The engine every run is simulated by. */
+	EvolutionEngine engine;
+	/** The seed of the next run. */
+	long seed;
+	
+	/**
+	 * Counts the generations of every run, which JMH reports next to the time they took.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Generations
+	{
+		/** The number of generations simulated by every run so far. */
+		public long generations;
+	}
+	
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		//the defaults of AI_Evolution, apart from the width
+		engine = new EvolutionEngine(width, 500, 5, 5, 1000, width, 1.0 / 95.0);
+		engine.SEED = ++seed;
+		engine.PARALLEL_SIMULATE = false;
+		engine.SELECTION = strategy;
+		engine.PARENTS = parents;
+		engine.SCHEDULE = schedule;
+	}
+	
+	@Benchmark
+	public AIEv run(Generations counter)
+	{
+		AIEv perfect = engine.run(100);
+		counter.generations += engine.GEN_COUNTER;
+		return perfect;
+	}
+}